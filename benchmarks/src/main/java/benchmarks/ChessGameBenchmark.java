@@ -0,0 +1,97 @@
+package benchmarks;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.MoveCache;
+import chess.MoveList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and game status calls the server makes on every move
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessGameBenchmark {
+
+    // Whether games share a move cache; with it off every call regenerates moves
+    @Param({"true", "false"})
+    public boolean moveCache;
+
+    private ChessGame middlegame;
+    private ChessGame check;
+    private ChessGame checkmate;
+    private ChessPosition[] sideToMovePieces;
+    private ChessMove quietMove;
+    private final MoveList moveList = new MoveList();
+
+    @Setup
+    public void setup() {
+        ChessGame.setMoveCache(moveCache ? MoveCache.tinyLfu(4096) : null);
+        middlegame = Positions.middlegame();
+        check = Positions.check();
+        checkmate = Positions.checkmate();
+        quietMove = ChessMove.fromUci("b1d2");
+
+        long pieces = middlegame.getBoard().getOccupancy(middlegame.getTeamTurn());
+        sideToMovePieces = new ChessPosition[Long.bitCount(pieces)];
+        for (int i = 0; pieces != 0; pieces &= pieces - 1, i++) {
+            sideToMovePieces[i] = Bitboards.position(Long.numberOfTrailingZeros(pieces));
+        }
+    }
+
+    /**
+     * validMoves for every piece of the side to move, as a client asking for all legal moves would
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition position : sideToMovePieces) {
+            blackhole.consume(middlegame.validMoves(position));
+        }
+    }
+
+    /**
+     * All legal moves for the side to move into a reused primitive list
+     */
+    @Benchmark
+    public int legalMovesIntoMoveList() {
+        middlegame.legalMoves(moveList);
+        return moveList.size();
+    }
+
+    /**
+     * makeMove including its validation; the move is taken back so every call sees the same position
+     */
+    @Benchmark
+    public void makeMove() throws InvalidMoveException {
+        middlegame.makeMove(quietMove);
+        middlegame.undoMove();
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return middlegame.isInCheck(middlegame.getTeamTurn());
+    }
+
+    /**
+     * In check but not mated, so every reply has to be tried
+     */
+    @Benchmark
+    public boolean isInCheckmateWithEscape() {
+        return check.isInCheckmate(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateMated() {
+        return checkmate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import dataaccess.AuthMemoryStorage;
+import dataaccess.GameMemoryStorage;
+import org.openjdk.jmh.annotations.*;
+import server.GameService;
+import spark.Request;
+import spark.Response;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /game against the in-memory storage
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameServiceBenchmark {
+
+    private static final String AUTH_TOKEN = "benchmark-token";
+
+    @Param({"10", "1000"})
+    public int gameCount;
+
+    private GameService gameService;
+    private Request request;
+    private Response response;
+
+    // Only the parts of Request and Response that GameService touches
+    static class BenchmarkRequest extends Request {
+        @Override
+        public String headers(String name) {
+            return "Authorization".equals(name) ? AUTH_TOKEN : null;
+        }
+    }
+
+    static class BenchmarkResponse extends Response {
+        private int statusCode;
+
+        @Override
+        public void status(int statusCode) {
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public int status() {
+            return statusCode;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        GameMemoryStorage gameStorage = new GameMemoryStorage();
+        AuthMemoryStorage authStorage = new AuthMemoryStorage();
+        authStorage.addToken(AUTH_TOKEN, "bench");
+        for (int i = 0; i < gameCount; i++) {
+            int gameID = gameStorage.createGame("game " + i, "bench");
+            if (i % 2 == 0) {
+                gameStorage.joinGame(gameID, "white" + i, "WHITE");
+            }
+        }
+        gameService = new GameService(gameStorage, authStorage);
+        request = new BenchmarkRequest();
+        response = new BenchmarkResponse();
+    }
+
+    @Benchmark
+    public String listGames() {
+        return gameService.listGames(request, response);
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+/**
+ * Games in fixed positions for the benchmarks, reached by playing moves from
+ * the starting position so every run measures the same thing.
+ */
+final class Positions {
+
+    private Positions() {
+    }
+
+    /**
+     * Quiet Italian Game middlegame, white to move:
+     * 1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5 4.c3 Nf6 5.d3 d6
+     */
+    static ChessGame middlegame() {
+        return play("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "c2c3", "g8f6", "d2d3", "d7d6");
+    }
+
+    /**
+     * Black in check with one way out: 1.e4 f5 2.Qh5+
+     */
+    static ChessGame check() {
+        return play("e2e4", "f7f5", "d1h5");
+    }
+
+    /**
+     * Fool's mate, white is checkmated: 1.f3 e5 2.g4 Qh4#
+     */
+    static ChessGame checkmate() {
+        return play("f2f3", "e7e5", "g2g4", "d8h4");
+    }
+
+    private static ChessGame play(String... moves) {
+        ChessGame game = new ChessGame();
+        try {
+            for (String move : moves) {
+                game.makeMove(ChessMove.fromUci(move));
+            }
+        } catch (InvalidMoveException e) {
+            throw new IllegalStateException("Benchmark position setup failed", e);
+        }
+        return game;
+    }
+}
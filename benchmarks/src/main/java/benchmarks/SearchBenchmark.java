@@ -0,0 +1,59 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth, as a bot move or hint would run, for each
+ * thread count; divide the result's node count by the time per operation
+ * for nodes/second. Lazy SMP pays off as a shorter time to depth, not as
+ * fewer nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"5"})
+    public int depth;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private final TranspositionTable table = new TranspositionTable(Search.DEFAULT_TABLE_MB);
+    private Search search;
+    private ChessGame middlegame;
+    private SearchLimits limits;
+
+    @Setup
+    public void setup() {
+        middlegame = Positions.middlegame();
+        limits = SearchLimits.depth(depth);
+        search = new Search(table, threads);
+    }
+
+    @TearDown
+    public void closeSearch() {
+        search.close();
+    }
+
+    // Each search starts cold, as a bot's first move in a new game would
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @Benchmark
+    public SearchResult middlegame() {
+        return search.search(middlegame, limits);
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.PositionCodec;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of a ChessGame: Gson, as sent in LOAD_GAME messages and stored
+ * by the server, against the binary position codec
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private Gson gson;
+    private ChessGame game;
+    private String json;
+    private final ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.SIZE);
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() {
+        gson = new Gson();
+        game = Positions.middlegame();
+        json = gson.toJson(game);
+        encoded = ByteBuffer.wrap(PositionCodec.encode(game));
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        buffer.clear();
+        PositionCodec.encode(game, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ChessGame decodeBinary() {
+        encoded.rewind();
+        return PositionCodec.decode(encoded);
+    }
+}
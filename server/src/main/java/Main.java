@@ -1,11 +1,21 @@
 import chess.*;
 import server.Server;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 public class Main {
     public static void main(String[] args) {
         var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess Server: " + piece);
 
+        // ✅ Endgame bitbases for adjudication, generated into bitbase.bin on the first start
+        try {
+            ChessGame.setBitbase(Bitbase.load(Paths.get("bitbase.bin")));
+        } catch (IOException e) {
+            System.err.println("❌ Failed to load endgame bitbases: " + e.getMessage());
+        }
+
         // ✅ Start WebSocket Server separately using Tyrus on port 8081
         org.glassfish.tyrus.server.Server websocketServer =
                 new org.glassfish.tyrus.server.Server("localhost", 8081, "/", null, server.websocket.WebSocketHandler.class);
@@ -18,7 +18,7 @@ public class SQLGameStorage implements GameStorage {
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            String gameJson = "{}";  // Avoid cyclic serialization for now
+            String gameJson = new Gson().toJson(new ChessGame());
 
             stmt.setString(1, gameName);
             stmt.setString(2, null);        // whiteUsername
@@ -0,0 +1,208 @@
+package chess;
+
+/**
+ * Precomputed attack tables for every piece type.
+ * <br>
+ * Knights, kings and pawns attack a fixed set of squares from each square, so
+ * those are plain 64-entry lookups. Bishops and rooks use magic bitboards: the
+ * blockers on a slider's rays are masked out of the occupancy, multiplied by a
+ * per-square magic number and shifted down to an index into a table holding
+ * the attack set for that blocker pattern. All tables are built once when the
+ * class is loaded.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+    // Magic numbers by square, found with a sparse random search and verified when the tables are built
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0xa80004000801220L, 0x8040004010002008L, 0x2080200010008008L, 0x1100100008210004L,
+            0xc200209084020008L, 0x2100010004000208L, 0x400081000822421L, 0x200010422048844L,
+            0x800800080400024L, 0x1402000401000L, 0x3000801000802001L, 0x4400800800100083L,
+            0x904802402480080L, 0x4040800400020080L, 0x18808042000100L, 0x4040800080004100L,
+            0x40048001458024L, 0xa0004000205000L, 0x3100808010002000L, 0x4825010010000820L,
+            0x5004808008000401L, 0x2024818004000a00L, 0x5808002000100L, 0x2100060004806104L,
+            0x80400880008421L, 0x4062220600410280L, 0x10a004a00108022L, 0x100080080080L,
+            0x21000500080010L, 0x44000202001008L, 0x100400080102L, 0xc020128200040545L,
+            0x80002000400040L, 0x804000802004L, 0x120022004080L, 0x10a386103001001L,
+            0x9010080080800400L, 0x8440020080800400L, 0x4228824001001L, 0x490a000084L,
+            0x80002000504000L, 0x200020005000c000L, 0x12088020420010L, 0x10010080080800L,
+            0x85001008010004L, 0x2000204008080L, 0x40413002040008L, 0x304081020004L,
+            0x80204000800080L, 0x3008804000290100L, 0x1010100080200080L, 0x2008100208028080L,
+            0x5000850800910100L, 0x8402019004680200L, 0x120911028020400L, 0x8044010200L,
+            0x20850200244012L, 0x20850200244012L, 0x102001040841L, 0x140900040a100021L,
+            0x200282410a102L, 0x200282410a102L, 0x200282410a102L, 0x4048240043802106L
+    };
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x40106000a1160020L, 0x20010250810120L, 0x2010010220280081L, 0x2806004050c040L,
+            0x2021018000000L, 0x2001112010000400L, 0x881010120218080L, 0x1030820110010500L,
+            0x120222042400L, 0x2000020404040044L, 0x8000480094208000L, 0x3422a02000001L,
+            0xa220210100040L, 0x8004820202226000L, 0x18234854100800L, 0x100004042101040L,
+            0x4001004082820L, 0x10000810010048L, 0x1014004208081300L, 0x2080818802044202L,
+            0x40880c00a00100L, 0x80400200522010L, 0x1000188180b04L, 0x80249202020204L,
+            0x1004400004100410L, 0x13100a0022206L, 0x2148500001040080L, 0x4241080011004300L,
+            0x4020848004002000L, 0x10101380d1004100L, 0x8004422020284L, 0x1010a1041008080L,
+            0x808080400082121L, 0x808080400082121L, 0x91128200100c00L, 0x202200802010104L,
+            0x8c0a020200440085L, 0x1a0008080b10040L, 0x889520080122800L, 0x100902022202010aL,
+            0x4081a0816002000L, 0x681208005000L, 0x8170840041008802L, 0xa00004200810805L,
+            0x830404408210100L, 0x2602208106006102L, 0x1048300680802628L, 0x2602208106006102L,
+            0x602010120110040L, 0x941010801043000L, 0x40440a210428L, 0x8240020880021L,
+            0x400002012048200L, 0xac102001210220L, 0x220021002009900L, 0x84440c080a013080L,
+            0x1008044200440L, 0x4c04410841000L, 0x2000500104011130L, 0x1a0c010011c20229L,
+            0x44800112202200L, 0x434804908100424L, 0x300404822c08200L, 0x48081010008a2a80L
+    };
+
+    private static final int[][] KNIGHT_STEPS = {{2,-1},{2,1},{1,-2},{1,2},{-1,-2},{-1,2},{-2,-1},{-2,1}};
+    private static final int[][] KING_STEPS = {{1,-1},{1,0},{1,1},{0,-1},{0,1},{-1,-1},{-1,0},{-1,1}};
+    private static final int[][] ROOK_DIRECTIONS = {{0,-1},{0,1},{1,0},{-1,0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1,-1},{1,1},{-1,-1},{-1,1}};
+
+    // Magic lookup for one square: attacks = table[((occupied & mask) * magic) >>> shift]
+    private static final class Magic {
+        final long mask;
+        final long magic;
+        final int shift;
+        final long[] table;
+
+        Magic(long mask, long magic, int shift, long[] table) {
+            this.mask = mask;
+            this.magic = magic;
+            this.shift = shift;
+            this.table = table;
+        }
+
+        long attacks(long occupied) {
+            return table[(int) (((occupied & mask) * magic) >>> shift)];
+        }
+    }
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_STEPS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_STEPS);
+            PAWN_ATTACKS[0][square] = stepAttacks(square, new int[][] {{1,-1},{1,1}});
+            PAWN_ATTACKS[1][square] = stepAttacks(square, new int[][] {{-1,-1},{-1,1}});
+        }
+        for (int square = 0; square < 64; square++) {
+            ROOK_MAGICS[square] = buildMagic(square, ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS[square]);
+            BISHOP_MAGICS[square] = buildMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS[square]);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * The two forward diagonals a pawn of the given color captures on
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[Bitboards.colorIndex(color)][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied) | BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * Squares a piece of the given kind attacks from a square with the given occupancy
+     */
+    public static long attacks(ChessPiece.PieceType type, ChessGame.TeamColor color, int square, long occupied) {
+        return switch (type) {
+            case KING -> KING_ATTACKS[square];
+            case QUEEN -> queenAttacks(square, occupied);
+            case BISHOP -> BISHOP_MAGICS[square].attacks(occupied);
+            case ROOK -> ROOK_MAGICS[square].attacks(occupied);
+            case KNIGHT -> KNIGHT_ATTACKS[square];
+            case PAWN -> pawnAttacks(color, square);
+        };
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int row = Bitboards.row(square) + step[0];
+            int col = Bitboards.column(square) + step[1];
+            if (Bitboards.onBoard(row, col)) {
+                attacks |= Bitboards.bit(Bitboards.square(row, col));
+            }
+        }
+        return attacks;
+    }
+
+    // Ray walk used only to fill the magic tables
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.column(square) + direction[1];
+            while (Bitboards.onBoard(row, col)) {
+                long bit = Bitboards.bit(Bitboards.square(row, col));
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // Squares whose occupancy can change the attack set: each ray minus its last square
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = Bitboards.row(square) + direction[0];
+            int col = Bitboards.column(square) + direction[1];
+            while (Bitboards.onBoard(row + direction[0], col + direction[1])) {
+                mask |= Bitboards.bit(Bitboards.square(row, col));
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static Magic buildMagic(int square, int[][] directions, long magic) {
+        long mask = relevantBlockers(square, directions);
+        int shift = 64 - Long.bitCount(mask);
+        long[] table = new long[1 << Long.bitCount(mask)];
+        boolean[] filled = new boolean[table.length];
+
+        // Walk every subset of the mask and store its attack set at the magic index
+        long blockers = 0L;
+        do {
+            int index = (int) ((blockers * magic) >>> shift);
+            long attacks = slidingAttacks(square, blockers, directions);
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic number for square " + square);
+            }
+            table[index] = attacks;
+            filled[index] = true;
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+
+        return new Magic(mask, magic, shift, table);
+    }
+}
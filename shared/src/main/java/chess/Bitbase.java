@@ -0,0 +1,284 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+/**
+ * Endgame bitbases for king and pawn, king and rook, and king and queen
+ * against a lone king: whether each position is a win for the side with the
+ * extra piece or a draw, with best play.
+ * <br>
+ * Positions are indexed as side to move, strong king, weak king and piece
+ * square, six bits each, with the colors flipped so the strong side is
+ * always white. That is 2^19 positions per ending, one bit each, set when
+ * the strong side wins; the weak side can never win, so a clear bit is a
+ * draw. All three endings take 192 KB.
+ * <br>
+ * Generation works back from the mates: a pass over every position marks
+ * it won when the strong side has a move to a won position, or when every
+ * move of the weak side leads to one, and passes repeat until one marks
+ * nothing new. Whatever is left unmarked is a draw. The positions of a
+ * pass are split across cores. A pawn that promotes looks its result up in
+ * the finished queen or rook bitbase, so those are generated first.
+ * <br>
+ * A Bitbase is immutable once made, so any number of threads can probe it.
+ */
+public final class Bitbase {
+
+    /**
+     * A position's result with best play, for the side to move
+     */
+    public enum Result {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    private static final int POSITIONS = 1 << 19;
+    private static final int WORDS = POSITIONS / 64;
+    // Endings in file order
+    private static final ChessPiece.PieceType[] PIECES = {ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.PAWN};
+    private static final int MAGIC = 0x4B584B31;
+
+    // Win bits by PieceType ordinal; null for pieces without an ending
+    private final long[][] wins = new long[ChessPiece.PieceType.values().length][];
+
+    private Bitbase() {
+    }
+
+    /**
+     * Solves all three endings, using every core
+     */
+    public static Bitbase generate() {
+        Bitbase bitbase = new Bitbase();
+        for (ChessPiece.PieceType piece : PIECES) {
+            bitbase.wins[piece.ordinal()] = bitbase.solve(piece);
+        }
+        return bitbase;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the file was not written by {@link #write(Path)}
+     */
+    public static Bitbase read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() != Integer.BYTES + PIECES.length * WORDS * Long.BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a bitbase file: " + path);
+        }
+        Bitbase bitbase = new Bitbase();
+        for (ChessPiece.PieceType piece : PIECES) {
+            long[] bits = new long[WORDS];
+            buffer.asLongBuffer().get(bits);
+            buffer.position(buffer.position() + WORDS * Long.BYTES);
+            bitbase.wins[piece.ordinal()] = bits;
+        }
+        return bitbase;
+    }
+
+    /**
+     * Reads the file, or generates the bitbases and writes them to it first
+     * if it does not exist yet
+     */
+    public static Bitbase load(Path path) throws IOException {
+        if (Files.exists(path)) {
+            return read(path);
+        }
+        Bitbase bitbase = generate();
+        bitbase.write(path);
+        return bitbase;
+    }
+
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + PIECES.length * WORDS * Long.BYTES);
+        buffer.putInt(MAGIC);
+        for (ChessPiece.PieceType piece : PIECES) {
+            buffer.asLongBuffer().put(wins[piece.ordinal()]);
+            buffer.position(buffer.position() + WORDS * Long.BYTES);
+        }
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * Result for the side to move, or null if the position is not king and
+     * pawn, rook or queen against king, castling rights are left, or it is one
+     * the tables skip as impossible: adjacent kings, a pawn on the first or
+     * last rank, or the side not to move in check
+     */
+    public Result probe(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        if (Long.bitCount(board.getOccupied()) != 3 || game.castlingRights() != 0
+                || board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING) == 0
+                || board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING) == 0) {
+            return null;
+        }
+        ChessGame.TeamColor strong = Long.bitCount(board.getOccupancy(ChessGame.TeamColor.WHITE)) == 2
+                ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        long pieces = board.getOccupancy(strong) & ~board.getPieces(strong, ChessPiece.PieceType.KING);
+        int pieceSquare = Long.numberOfTrailingZeros(pieces);
+        ChessPiece.PieceType piece = board.getPiece(pieceSquare).getPieceType();
+        long[] bits = wins[piece.ordinal()];
+        if (bits == null) {
+            return null;
+        }
+        // Flip the board when black is the strong side
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        boolean strongToMove = game.getTeamTurn() == strong;
+        int strongKing = board.getKingSquare(strong) ^ flip;
+        int weakKing = board.getKingSquare(weak) ^ flip;
+        if (!isValid(piece, !strongToMove, strongKing, weakKing, pieceSquare ^ flip)) {
+            return null;
+        }
+        int index = index(!strongToMove, strongKing, weakKing, pieceSquare ^ flip);
+        if ((bits[index >>> 6] & (1L << index)) == 0) {
+            return Result.DRAW;
+        }
+        return strongToMove ? Result.WIN : Result.LOSS;
+    }
+
+    // Won positions of an ending with the given side to move
+    int countWins(ChessPiece.PieceType piece, boolean weakToMove) {
+        long[] bits = wins[piece.ordinal()];
+        int count = 0;
+        for (int word = weakToMove ? WORDS / 2 : 0, end = word + WORDS / 2; word < end; word++) {
+            count += Long.bitCount(bits[word]);
+        }
+        return count;
+    }
+
+    private static int index(boolean weakToMove, int strongKing, int weakKing, int piece) {
+        return (weakToMove ? 1 << 18 : 0) | strongKing << 12 | weakKing << 6 | piece;
+    }
+
+    private long[] solve(ChessPiece.PieceType piece) {
+        byte[] won = new byte[POSITIONS];
+        int marked;
+        do {
+            // Split by strong king square; a pass may already see wins marked by others in it, which only helps
+            marked = IntStream.range(0, 64).parallel().map(king -> solvePass(piece, won, king)).sum();
+        } while (marked > 0);
+        long[] bits = new long[WORDS];
+        for (int index = 0; index < POSITIONS; index++) {
+            if (won[index] != 0) {
+                bits[index >>> 6] |= 1L << index;
+            }
+        }
+        return bits;
+    }
+
+    // Marks newly won positions with the strong king on the square, returning how many
+    private int solvePass(ChessPiece.PieceType piece, byte[] won, int strongKing) {
+        int marked = 0;
+        for (int side = 0; side < 2; side++) {
+            for (int weakKing = 0; weakKing < 64; weakKing++) {
+                for (int square = 0; square < 64; square++) {
+                    int index = index(side == 1, strongKing, weakKing, square);
+                    if (won[index] == 0 && isValid(piece, side == 1, strongKing, weakKing, square)
+                            && (side == 0 ? strongWins(piece, won, strongKing, weakKing, square)
+                            : weakLoses(piece, won, strongKing, weakKing, square))) {
+                        won[index] = 1;
+                        marked++;
+                    }
+                }
+            }
+        }
+        return marked;
+    }
+
+    private static boolean isValid(ChessPiece.PieceType piece, boolean weakToMove, int strongKing, int weakKing,
+                                   int square) {
+        if (strongKing == weakKing || square == strongKing || square == weakKing
+                || (Attacks.kingAttacks(strongKing) & Bitboards.bit(weakKing)) != 0) {
+            return false;
+        }
+        if (piece == ChessPiece.PieceType.PAWN && (square < 8 || square >= 56)) {
+            return false;
+        }
+        // The side not to move cannot be in check
+        return weakToMove || (attacks(piece, square, Bitboards.bit(strongKing) | Bitboards.bit(weakKing))
+                & Bitboards.bit(weakKing)) == 0;
+    }
+
+    // Strong side to move: won if any move reaches a won position
+    private boolean strongWins(ChessPiece.PieceType piece, byte[] won, int strongKing, int weakKing, int square) {
+        long weakKingZone = Attacks.kingAttacks(weakKing);
+        for (long targets = Attacks.kingAttacks(strongKing) & ~weakKingZone & ~Bitboards.bit(square);
+             targets != 0; targets &= targets - 1) {
+            if (won[index(true, Long.numberOfTrailingZeros(targets), weakKing, square)] != 0) {
+                return true;
+            }
+        }
+
+        long occupied = Bitboards.bit(strongKing) | Bitboards.bit(weakKing) | Bitboards.bit(square);
+        if (piece != ChessPiece.PieceType.PAWN) {
+            for (long targets = attacks(piece, square, occupied) & ~occupied; targets != 0; targets &= targets - 1) {
+                if (won[index(true, strongKing, weakKing, Long.numberOfTrailingZeros(targets))] != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int push = square + 8;
+        if ((occupied & Bitboards.bit(push)) != 0) {
+            return false;
+        }
+        if (push >= 56) {
+            // Promote to a queen, or to a rook where the queen would stalemate
+            return isWon(ChessPiece.PieceType.QUEEN, strongKing, weakKing, push)
+                    || isWon(ChessPiece.PieceType.ROOK, strongKing, weakKing, push);
+        }
+        if (won[index(true, strongKing, weakKing, push)] != 0) {
+            return true;
+        }
+        return square < 16 && (occupied & Bitboards.bit(push + 8)) == 0
+                && won[index(true, strongKing, weakKing, push + 8)] != 0;
+    }
+
+    // Weak side to move: lost if checkmated, or if every move reaches a won position without taking the piece
+    private boolean weakLoses(ChessPiece.PieceType piece, byte[] won, int strongKing, int weakKing, int square) {
+        long guarded = Attacks.kingAttacks(strongKing)
+                | attacks(piece, square, Bitboards.bit(strongKing) | Bitboards.bit(square));
+        long targets = Attacks.kingAttacks(weakKing) & ~guarded;
+        if (targets == 0) {
+            // Mate, or stalemate
+            return (attacks(piece, square, Bitboards.bit(strongKing) | Bitboards.bit(weakKing))
+                    & Bitboards.bit(weakKing)) != 0;
+        }
+        for (; targets != 0; targets &= targets - 1) {
+            int target = Long.numberOfTrailingZeros(targets);
+            if (target == square || won[index(false, strongKing, target, square)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Looks up a finished ending, with the weak side to move
+    private boolean isWon(ChessPiece.PieceType piece, int strongKing, int weakKing, int square) {
+        int index = index(true, strongKing, weakKing, square);
+        return (wins[piece.ordinal()][index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static long attacks(ChessPiece.PieceType piece, int square, long occupied) {
+        return Attacks.attacks(piece, ChessGame.TeamColor.WHITE, square, occupied);
+    }
+
+    /**
+     * Generates the bitbases and writes them to the file given as the first
+     * argument, or to bitbase.bin
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "bitbase.bin");
+        long start = System.nanoTime();
+        Bitbase bitbase = generate();
+        bitbase.write(path);
+        System.out.printf("Wrote %s in %.1f s%n", path, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,117 @@
+package chess;
+
+/**
+ * Square and bitboard helpers shared by the board, the pieces and the game.
+ * <br>
+ * Squares are numbered 0-63 starting at a1 and running along each row, so
+ * a1 = 0, h1 = 7, a8 = 56 and h8 = 63. A bitboard is a long with bit n set
+ * when square n is part of the set.
+ * <br>
+ * The between and line tables hold, for every pair of squares on a shared
+ * row, column or diagonal, the squares strictly between them and the whole
+ * line through them, so path, pin and discovered check tests are a single
+ * mask operation.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long ROW_1 = 0xFFL;
+    public static final long ROW_8 = ROW_1 << 56;
+
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    // Row and column steps for the eight queen directions
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition(row(square), column(square));
+        }
+        for (int square = 0; square < 64; square++) {
+            for (int[] direction : DIRECTIONS) {
+                long line = bit(square) | ray(square, direction[0], direction[1]) | ray(square, -direction[0], -direction[1]);
+                long path = 0L;
+                int row = row(square) + direction[0];
+                int col = column(square) + direction[1];
+                for (; onBoard(row, col); row += direction[0], col += direction[1]) {
+                    int target = square(row, col);
+                    BETWEEN[square][target] = path;
+                    LINE[square][target] = line;
+                    path |= bit(target);
+                }
+            }
+        }
+    }
+
+    // Squares from a square (excluding it) to the edge of the board in one direction
+    private static long ray(int square, int rowStep, int colStep) {
+        long ray = 0L;
+        int row = row(square) + rowStep;
+        int col = column(square) + colStep;
+        for (; onBoard(row, col); row += rowStep, col += colStep) {
+            ray |= bit(square(row, col));
+        }
+        return ray;
+    }
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * Returns the shared position object for a square, so move generation
+     * does not need to allocate one per target square
+     */
+    public static ChessPosition position(int square) {
+        return POSITIONS[square];
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    public static int colorIndex(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? 0 : 1;
+    }
+
+    /**
+     * Squares strictly between two squares on a shared row, column or
+     * diagonal, or an empty set when they do not share one
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * The whole row, column or diagonal through two squares, edge to edge
+     * and including both, or an empty set when they do not share one
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+}
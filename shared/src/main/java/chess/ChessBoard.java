@@ -3,66 +3,250 @@ package chess;
 import java.util.Arrays;
 
 public class ChessBoard {
-    private ChessPiece[][] squares = new ChessPiece[8][8];
-    private ChessGame game;
-
-    public ChessGame getGame() { return game; }
-    public void setGame(ChessGame game) {
-        this.game = game;
-        // Set game reference for all pieces (if needed)
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (squares[row][col] != null) {
-                    squares[row][col].setGame(game);
-                }
-            }
-        }
-    }
+    // One bitboard per color and piece type, indexed by color * 6 + type ordinal
+    private final long[] pieceBitboards = new long[12];
+    private final long[] colorOccupancy = new long[2];
+    private long occupied;
+    // Zobrist key of the pieces on the board, kept up to date by putPiece/removePiece
+    private long key;
+    // King square per color, -1 when that color has no king
+    private final int[] kingSquares = {-1, -1};
+    // Engine-only terms, never serialized: built from the bitboards the first time one is read, and only
+    // kept up to date from then on, so boards that are never evaluated do not pay for them
+    private transient boolean termsValid;
+    // Zobrist key of the pawns alone, for caching pawn structure
+    private transient long pawnKey;
+    // Material plus piece-square totals, white minus black, and the game phase; see PieceSquareTables
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
+    // Compatibility view for getPiece/addPiece, indexed by square
+    private ChessPiece[] squares = new ChessPiece[64];
 
     public ChessBoard() {
         
     }
 
+    /**
+     * A copy of another board. Pieces are shared immutable values, so this is
+     * a handful of flat array copies.
+     */
+    public ChessBoard(ChessBoard other) {
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(other.colorOccupancy, 0, colorOccupancy, 0, colorOccupancy.length);
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        occupied = other.occupied;
+        key = other.key;
+        termsValid = other.termsValid;
+        pawnKey = other.pawnKey;
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        kingSquares[0] = other.kingSquares[0];
+        kingSquares[1] = other.kingSquares[1];
+    }
+
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
-        if (piece != null && game != null) {
-            piece.setGame(this.game);
+        int square = Bitboards.square(position);
+        removePiece(square);
+        if (piece != null) {
+            putPiece(square, piece);
         }
     }
 
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow()-1][position.getColumn()-1];
+        return squares[Bitboards.square(position)];
+    }
+
+    public ChessPiece getPiece(int square) {
+        return squares[square];
+    }
+
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBitboards[bitboardIndex(color, type)];
+    }
+
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colorOccupancy[Bitboards.colorIndex(color)];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * The team's pieces that attack a square, as a bitboard. Works outward
+     * from the square: knight, king and pawn attack sets from the target
+     * pick out pieces of that kind, and slider rays from the target pick out
+     * rooks, bishops and queens, so nothing else on the board is visited.
+     */
+    public long attackersOf(int square, ChessGame.TeamColor color) {
+        return attackersOf(square, color, occupied);
+    }
+
+    /**
+     * attackersOf with a different occupancy, for asking what would attack
+     * the square with pieces lifted off or moved, as exchanges and king moves
+     * need. Pieces missing from the occupancy are never reported.
+     */
+    public long attackersOf(int square, ChessGame.TeamColor color, long occupied) {
+        int base = Bitboards.colorIndex(color) * 6;
+        ChessGame.TeamColor other = (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long rooks = pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        long bishops = pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        // A pawn of this color attacks the square if a pawn of the other color on the square would attack it back
+        long attackers = (Attacks.knightAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (Attacks.kingAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()])
+                | (Attacks.pawnAttacks(other, square) & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Attacks.rookAttacks(square, occupied) & rooks)
+                | (Attacks.bishopAttacks(square, occupied) & bishops);
+        return attackers & occupied;
+    }
+
+    /**
+     * Square of the team's king, or -1 if it has none
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        return kingSquares[Bitboards.colorIndex(color)];
+    }
+
+    /**
+     * Zobrist key of the piece placement. Boards with the same pieces on the
+     * same squares have the same key however they were set up.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    public long getPawnKey() {
+        ensureTerms();
+        return pawnKey;
+    }
+
+    /**
+     * Material plus piece-square bonuses in centipawns, white minus black,
+     * valued for the middlegame. Kept up to date as pieces move, so reading
+     * it costs nothing.
+     */
+    public int getMiddlegameScore() {
+        ensureTerms();
+        return middlegameScore;
+    }
+
+    /**
+     * {@link #getMiddlegameScore()} valued for the endgame
+     */
+    public int getEndgameScore() {
+        ensureTerms();
+        return endgameScore;
+    }
+
+    /**
+     * How much non-pawn material is left, counting knights and bishops 1,
+     * rooks 2 and queens 4: 24 in the starting position, 0 with only kings
+     * and pawns. Promotions can push it above 24.
+     */
+    public int getPhase() {
+        ensureTerms();
+        return phase;
+    }
+
+    private void putPiece(int square, ChessPiece piece) {
+        long bit = Bitboards.bit(square);
+        int index = bitboardIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceBitboards[index] |= bit;
+        updateTerms(index, square, 1);
+        colorOccupancy[Bitboards.colorIndex(piece.getTeamColor())] |= bit;
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[Bitboards.colorIndex(piece.getTeamColor())] = square;
+        }
+        occupied |= bit;
+        squares[square] = piece;
+    }
+
+    private void removePiece(int square) {
+        ChessPiece piece = squares[square];
+        if (piece == null) {
+            return;
+        }
+        long bit = Bitboards.bit(square);
+        int index = bitboardIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceBitboards[index] &= ~bit;
+        updateTerms(index, square, -1);
+        colorOccupancy[Bitboards.colorIndex(piece.getTeamColor())] &= ~bit;
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            // Test boards may hold a second king; fall back to it if there is one
+            long kings = pieceBitboards[index];
+            kingSquares[Bitboards.colorIndex(piece.getTeamColor())] = kings != 0 ? Long.numberOfTrailingZeros(kings) : -1;
+        }
+        occupied &= ~bit;
+        squares[square] = null;
+    }
+
+    // Adds (sign 1) or takes away (sign -1) a piece's share of the key and, once built, the evaluation terms
+    private void updateTerms(int index, int square, int sign) {
+        key ^= Zobrist.piece(index, square);
+        if (termsValid) {
+            addTerms(index, square, sign);
+        }
+    }
+
+    private void addTerms(int index, int square, int sign) {
+        if (index % 6 == ChessPiece.PieceType.PAWN.ordinal()) {
+            pawnKey ^= Zobrist.piece(index, square);
+        }
+        middlegameScore += sign * PieceSquareTables.middlegame(index, square);
+        endgameScore += sign * PieceSquareTables.endgame(index, square);
+        phase += sign * PieceSquareTables.phase(index);
+    }
+
+    private void ensureTerms() {
+        if (termsValid) {
+            return;
+        }
+        pawnKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        for (int index = 0; index < pieceBitboards.length; index++) {
+            for (long pieces = pieceBitboards[index]; pieces != 0; pieces &= pieces - 1) {
+                addTerms(index, Long.numberOfTrailingZeros(pieces), 1);
+            }
+        }
+        termsValid = true;
+    }
+
+    private static int bitboardIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return Bitboards.colorIndex(color) * 6 + type.ordinal();
     }
 
     public void resetBoard() {
         // Clear the board
-        squares = new ChessPiece[8][8];
+        squares = new ChessPiece[64];
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        occupied = 0L;
+        key = 0L;
+        termsValid = false;
+        Arrays.fill(kingSquares, -1);
 
         // Set up pawns
         for (int col = 1; col <= 8; col++) {
-            squares[1][col-1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-            squares[6][col-1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+            putPiece(Bitboards.square(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            putPiece(Bitboards.square(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 
-        // Set up back row pieces (white)
-        squares[0][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[0][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        squares[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        squares[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-
-        // Set up back row pieces (black)
-        squares[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        squares[7][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        squares[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        squares[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        // Set up back row pieces
+        ChessPiece.PieceType[] backRow = {
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+        };
+        for (int col = 1; col <= 8; col++) {
+            putPiece(Bitboards.square(1, col), ChessPiece.of(ChessGame.TeamColor.WHITE, backRow[col-1]));
+            putPiece(Bitboards.square(8, col), ChessPiece.of(ChessGame.TeamColor.BLACK, backRow[col-1]));
+        }
     }
 
     @Override
@@ -74,11 +258,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Arrays.deepEquals(squares, that.squares);
+        // Different keys always mean different boards; equal keys are confirmed against the bitboards
+        return key == that.key && Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(key);
     }
 }
@@ -1,32 +1,293 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 public class ChessGame {
+    // Castling rights bits of the state word
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = 15;
+
+    private static final int EN_PASSANT_SHIFT = 4;
+
+    // Castling rights lost when a piece moves from or to each square
+    private static final int[] CASTLING_LOST = new int[64];
+
+    static {
+        CASTLING_LOST[Bitboards.square(1, 5)] = WHITE_KINGSIDE | WHITE_QUEENSIDE;
+        CASTLING_LOST[Bitboards.square(1, 1)] = WHITE_QUEENSIDE;
+        CASTLING_LOST[Bitboards.square(1, 8)] = WHITE_KINGSIDE;
+        CASTLING_LOST[Bitboards.square(8, 5)] = BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        CASTLING_LOST[Bitboards.square(8, 1)] = BLACK_QUEENSIDE;
+        CASTLING_LOST[Bitboards.square(8, 8)] = BLACK_KINGSIDE;
+    }
+
+    // Legal moves by position, shared by every game; null turns caching off
+    private static volatile MoveCache moveCache = MoveCache.tinyLfu(4096);
+    // Endgame results shared by every game; null until one is set
+    private static volatile Bitbase bitbase;
+
     private TeamColor teamTurn;
     private ChessBoard board;
-    private ChessPosition enPassantTarget;
+    // Castling rights in bits 0-3, en passant target square + 1 above them (0 when there is none)
+    private int state;
+    // Plies since the last capture or pawn move
+    private int halfmoveClock;
+    // Starts at 1 and goes up after each black move
+    private int fullmoveNumber = 1;
+    // Undo records for doMove/undoMove, reused across moves
+    private transient MoveUndo[] undoStack = new MoveUndo[64];
+    private transient int undoCount;
+    private transient MoveGenerator moveGenerator = new MoveGenerator();
+    private transient MoveList scratchMoves;
+    // Team that resigned, if any
+    private TeamColor resigned;
+    // Bitbase result the game was adjudicated with, for the team to move at the time; null if it was not
+    private Bitbase.Result adjudicated;
+    // Cached status; dropped by doMove/undoMove and checked against the position key for direct board edits
+    private transient GameStatus status;
+    private transient long statusKey;
+
+    public ChessPosition getEnPassantTarget() {
+        int square = enPassantSquare();
+        return square >= 0 ? Bitboards.position(square) : null;
+    }
+    public void setEnPassantTarget(ChessPosition pos) {
+        int target = pos != null ? Bitboards.square(pos) + 1 : 0;
+        this.state = castlingRights() | (target << EN_PASSANT_SHIFT);
+    }
 
-    public ChessPosition getEnPassantTarget() { return enPassantTarget; }
-    public void setEnPassantTarget(ChessPosition pos) { this.enPassantTarget = pos; }
+    // Square a pawn can capture onto en passant, or -1
+    int enPassantSquare() {
+        return (state >>> EN_PASSANT_SHIFT) - 1;
+    }
 
+    /**
+     * Castling rights still held, as a mask of the WHITE_/BLACK_ side bits
+     */
+    int castlingRights() {
+        return state & ALL_CASTLING;
+    }
+
+    void setCastlingRights(int rights) {
+        this.state = (state & ~ALL_CASTLING) | (rights & ALL_CASTLING);
+    }
+
+    /**
+     * True once a team has resigned, the game has been adjudicated, the side
+     * to move is checkmated or stalemated, the position has occurred three
+     * times, or seventy-five moves have passed without a capture or pawn move. Repetition ends the
+     * game outright since players have no way to claim a draw.
+     * <br>
+     * makeMove refuses every move while this holds.
+     */
     public boolean isGameOver() {
-        // Return false by default; replace with actual logic if needed
-        return false;
+        return getStatus().isGameOver();
     }
 
+    /**
+     * The team that delivered checkmate, whose opponent resigned or that
+     * was adjudicated the win, or null while the game is going on or drawn
+     */
     public TeamColor getWinner() {
-        // Return null by default; replace with actual logic if needed
-        return null;
+        return switch (getStatus()) {
+            case CHECKMATE -> (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+            case RESIGNED -> (resigned == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+            case ADJUDICATED -> switch (adjudicated) {
+                case WIN -> teamTurn;
+                case LOSS -> (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+                case DRAW -> null;
+            };
+            default -> null;
+        };
+    }
+
+    /**
+     * Status of the game for the team whose turn it is. Worked out once per
+     * position, after each makeMove or on first request, and then returned
+     * from a cache until the position changes.
+     */
+    public GameStatus getStatus() {
+        if (resigned != null) {
+            return GameStatus.RESIGNED;
+        }
+        if (adjudicated != null) {
+            return GameStatus.ADJUDICATED;
+        }
+        long key = positionKey();
+        if (status == null || key != statusKey) {
+            status = computeStatus();
+            statusKey = key;
+        }
+        return status;
+    }
+
+    // Mate and stalemate take precedence over draws by rule reached on the same move
+    private GameStatus computeStatus() {
+        MoveCache cache = moveCache;
+        GameStatus position = cache != null ? positionMoves(cache).status
+                : positionStatus(isInCheck(teamTurn), hasValidMove(teamTurn));
+        if (position.isGameOver()) {
+            return position;
+        }
+        if (isThreefoldRepetition() || isSeventyFiveMoveRule()) {
+            return GameStatus.DRAW;
+        }
+        return position;
+    }
+
+    // Status from the position alone, before the draw rules
+    private static GameStatus positionStatus(boolean check, boolean hasMoves) {
+        if (!hasMoves) {
+            return check ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        return check ? GameStatus.CHECK : GameStatus.ONGOING;
+    }
+
+    /**
+     * Ends the game with the given team resigning; no further moves can be made
+     */
+    public void resign(TeamColor team) {
+        if (resigned == null) {
+            resigned = team;
+        }
+    }
+
+    /**
+     * Ends the game with its result under best play when the position is an
+     * ending the bitbase covers, so a decided ending is not played out.
+     * Returns whether the game was ended; it is not when no bitbase is set,
+     * the position is not covered or the game is already over.
+     */
+    public boolean adjudicate() {
+        if (isGameOver()) {
+            return false;
+        }
+        adjudicated = getKnownResult();
+        return adjudicated != null;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+        this.status = null;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Sets up a game from a FEN record, e.g.
+     * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+     * The halfmove clock and fullmove number may be omitted.
+     *
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * The current position as a FEN record
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * True if the current position (same placement, side to move, castling
+     * rights and en passant) has occurred at least three times. Only the
+     * positions since the last capture or pawn move can repeat, so the scan
+     * stops there.
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions() >= 3;
+    }
+
+    /**
+     * True if the current position has occurred before since the last
+     * capture or pawn move. A search scores this as a draw: whichever side
+     * could avoid repeating would already have done so.
+     */
+    public boolean isRepetition() {
+        return repetitions() >= 2;
+    }
+
+    /**
+     * Fifty moves by each side without a capture or pawn move; a draw may be claimed
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Seventy-five moves by each side without a capture or pawn move; the game is drawn
+     */
+    public boolean isSeventyFiveMoveRule() {
+        return halfmoveClock >= 150;
+    }
+
+    // Occurrences of the current position, counting itself, among the positions played since the last irreversible move
+    private int repetitions() {
+        if (halfmoveClock < 4) {
+            return 1;
+        }
+        long key = positionKey();
+        int count = 1;
+        int oldest = Math.max(0, undoCount - halfmoveClock);
+        // Only positions with the same side to move can match, so step back two plies at a time
+        for (int ply = undoCount - 2; ply >= oldest; ply -= 2) {
+            if (undoStack[ply].positionKey == key) {
+                count++;
+            }
+        }
+        return count;
     }
 
     public ChessGame() {
         this.teamTurn = TeamColor.WHITE; // White plays first
         this.board = new ChessBoard();
-        this.board.setGame(this);
         this.board.resetBoard();
+        this.state = ALL_CASTLING;
+    }
+
+    // Wraps an already built board without setting up the starting position first; used by the decoders
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.teamTurn = teamTurn;
+        setBoard(board);
+    }
+
+    /**
+     * A copy of another game's position: board, side to move, castling, en
+     * passant, move counters and move history, so the copy can undo the other
+     * game's moves and sees the same repetitions. Each search thread works on
+     * its own copy.
+     */
+    public ChessGame(ChessGame other) {
+        this.teamTurn = other.teamTurn;
+        this.board = new ChessBoard(other.board);
+        this.state = other.state;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.undoCount = other.undoCount;
+        this.undoStack = new MoveUndo[Math.max(64, other.undoCount)];
+        for (int i = 0; i < other.undoCount; i++) {
+            this.undoStack[i] = new MoveUndo(other.undoStack[i]);
+        }
     }
 
     public TeamColor getTeamTurn() {
@@ -49,91 +310,98 @@ public class ChessGame {
             return null;
         }
 
-        // Associate this game with the piece so it can access en passant info
-        piece.setGame(this);
-
-        Collection<ChessMove> potentialMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        // CASTLING CODE
-        if (piece.getPieceType() == ChessPiece.PieceType.KING && !piece.hasMoved()) {
-            // Kingside castle
-            if (canCastle(startPosition, 1)) {
-                validMoves.add(new ChessMove(startPosition,
-                        new ChessPosition(startPosition.getRow(), startPosition.getColumn() + 2), null));
-            }
-            // Queenside castle
-            if (canCastle(startPosition, -1)) {
-                validMoves.add(new ChessMove(startPosition,
-                        new ChessPosition(startPosition.getRow(), startPosition.getColumn() - 2), null));
+        int square = Bitboards.square(startPosition);
+        MoveCache cache = moveCache;
+        if (cache != null && piece.getTeamColor() == teamTurn) {
+            List<ChessMove> moves = new ArrayList<>();
+            for (int move : positionMoves(cache).moves) {
+                if (Move.from(move) == square) {
+                    moves.add(Move.toChessMove(move));
+                }
             }
-        } // CASTILNG CODE END
-
-        for (ChessMove move : potentialMoves) {
-            ChessBoard testBoard = new ChessBoard();
-            copyBoard(this.board, testBoard);
-
-            ChessPiece movingPiece = testBoard.getPiece(move.getStartPosition());
-            testBoard.addPiece(move.getStartPosition(), null);
+            return moves;
+        }
 
-            boolean isEnPassant = false;
-            // Handle En Passant capture simulation
-            if (movingPiece.getPieceType() == ChessPiece.PieceType.PAWN &&
-                    move.getStartPosition().getColumn() != move.getEndPosition().getColumn() &&
-                    testBoard.getPiece(move.getEndPosition()) == null) {
+        MoveList moves = new MoveList();
+        moveGenerator().generate(this, piece.getTeamColor(), Bitboards.bit(square), moves);
+        return moves.toChessMoves();
+    }
 
-                ChessPosition enPassantTarget = this.enPassantTarget;
-                if (enPassantTarget != null &&
-                        move.getEndPosition().equals(enPassantTarget)) {
-                    isEnPassant = true;
+    // Legal moves and status of the position from the shared cache, generating and storing them on a miss
+    private MoveCache.Entry positionMoves(MoveCache cache) {
+        long key = positionKey();
+        MoveCache.Entry entry = cache.get(key);
+        if (entry == null || !entry.matches(board)) {
+            if (scratchMoves == null) {
+                scratchMoves = new MoveList();
+            }
+            legalMoves(scratchMoves);
+            entry = new MoveCache.Entry(scratchMoves.toArray(),
+                    positionStatus(isInCheck(teamTurn), !scratchMoves.isEmpty()), board);
+            cache.put(key, entry);
+        }
+        return entry;
+    }
 
-                    int capturedPawnRow = move.getStartPosition().getRow();
-                    ChessPosition capturedPawnPos = new ChessPosition(capturedPawnRow, move.getEndPosition().getColumn());
+    /**
+     * Replaces the move cache shared by all games; null turns caching off
+     */
+    public static void setMoveCache(MoveCache cache) {
+        moveCache = cache;
+    }
 
-                    testBoard.addPiece(capturedPawnPos, null); // Remove the captured pawn
-                }
-            }
+    public static MoveCache getMoveCache() {
+        return moveCache;
+    }
 
-            testBoard.addPiece(move.getEndPosition(), movingPiece);
+    /**
+     * Sets the endgame bitbase shared by all games; null turns it off
+     */
+    public static void setBitbase(Bitbase bitbase) {
+        ChessGame.bitbase = bitbase;
+    }
 
-            // Handle promotion
-            if (move.getPromotionPiece() != null) {
-                testBoard.addPiece(move.getEndPosition(),
-                        new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-            }
+    public static Bitbase getBitbase() {
+        return bitbase;
+    }
 
-            ChessGame testGame = new ChessGame();
-            testGame.setBoard(testBoard);
-            testGame.setTeamTurn(piece.getTeamColor());
+    /**
+     * Result with best play for the team whose turn it is, when the
+     * position is an ending the bitbase covers; null otherwise or when no
+     * bitbase is set. See {@link #adjudicate()}.
+     */
+    public Bitbase.Result getKnownResult() {
+        Bitbase bases = bitbase;
+        return bases != null ? bases.probe(this) : null;
+    }
 
-            if (!testGame.isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
-            }
-        }
-        System.out.println("[DEBUG] Calculating valid moves for: " + startPosition);
-        return validMoves;
+    /**
+     * Every legal move for the team whose turn it is, including castling,
+     * en passant and each promotion choice
+     */
+    public Collection<ChessMove> legalMoves() {
+        MoveList moves = new MoveList();
+        legalMoves(moves);
+        return moves.toChessMoves();
     }
 
-    // Pawn helper methods for makeMove: validatePawnPromotion, validateEnPassantDiagonalCapture
-    private void validatePawnPromotion(ChessMove move, ChessPiece piece) throws InvalidMoveException {
-        int promotionRow = (teamTurn == TeamColor.WHITE) ? 8 : 1;
-        if (move.getEndPosition().getRow() == promotionRow) {
-            ChessPiece.PieceType promotionPiece = move.getPromotionPiece();
-            if (promotionPiece == null || promotionPiece == ChessPiece.PieceType.PAWN || promotionPiece == ChessPiece.PieceType.KING) {
-                throw new InvalidMoveException("Invalid pawn promotion");
-            }
-        }
+    /**
+     * Replaces the contents of moves with every legal move for the team whose
+     * turn it is. Does not allocate, so search and analysis can reuse one
+     * list per ply.
+     */
+    public void legalMoves(MoveList moves) {
+        moves.clear();
+        moveGenerator().generate(this, teamTurn, ~0L, moves);
     }
-    private void validateEnPassantDiagonalCapture(ChessMove move, ChessPiece targetPiece) throws InvalidMoveException {
-        if (targetPiece != null){
-            return;
-        }
 
-        ChessPosition enPassantTarget = board.getGame().getEnPassantTarget();
-        if (enPassantTarget == null || !move.getEndPosition().equals(enPassantTarget)) {
-            throw new InvalidMoveException("Pawns can only move diagonally to capture");
+    private MoveGenerator moveGenerator() {
+        if (moveGenerator == null) {
+            moveGenerator = new MoveGenerator(); // not restored by deserialization
         }
+        return moveGenerator;
     }
+
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPiece piece = board.getPiece(move.getStartPosition());
         if (piece == null){
@@ -142,20 +410,8 @@ public class ChessGame {
         if (piece.getTeamColor() != teamTurn){
             throw new InvalidMoveException("Not your turn");
         }
-
-        if (piece.getPieceType() == ChessPiece.PieceType.KING &&
-                Math.abs(move.getStartPosition().getColumn() - move.getEndPosition().getColumn()) == 2) {
-            executeCastle(move);
-            return;
-        }
-
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN &&
-                Math.abs(move.getStartPosition().getRow() - move.getEndPosition().getRow()) == 2) {
-            int enPassantRow = piece.getTeamColor() == TeamColor.WHITE
-                    ? move.getStartPosition().getRow() + 1
-                    : move.getStartPosition().getRow() - 1;
-            enPassantTarget = new ChessPosition(enPassantRow, move.getStartPosition().getColumn());
-            System.out.println("[DEBUG] En Passant target set at: " + enPassantTarget);
+        if (getStatus().isGameOver()) {
+            throw new InvalidMoveException("Game is over");
         }
 
         Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
@@ -167,297 +423,260 @@ public class ChessGame {
             throw new InvalidMoveException("Invalid move for this piece");
         }
 
-        if (piece.getPieceType() != ChessPiece.PieceType.KNIGHT &&
-                isPathBlocked(move.getStartPosition(), move.getEndPosition())) {
-            throw new InvalidMoveException("Path is blocked");
-        }
-
-        ChessPiece targetPiece = board.getPiece(move.getEndPosition());
-        if (targetPiece != null && targetPiece.getTeamColor() == teamTurn) {
-            throw new InvalidMoveException("Cannot capture your own piece");
-        }
-
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            int promotionRow = (teamTurn == TeamColor.WHITE) ? 8 : 1;
-            if (move.getEndPosition().getRow() == promotionRow) {
-                validatePawnPromotion(move, piece);
-            }
-
-            if (move.getStartPosition().getColumn() != move.getEndPosition().getColumn()) {
-                validateEnPassantDiagonalCapture(move, targetPiece);
-            }
-        }
-
-        ChessBoard testBoard = new ChessBoard();
-        copyBoard(board, testBoard);
-        testBoard.addPiece(move.getEndPosition(), piece);
-        testBoard.addPiece(move.getStartPosition(), null);
-
-        ChessPiece.PieceType promotionPiece = move.getPromotionPiece();
-        if (promotionPiece != null) {
-            testBoard.addPiece(move.getEndPosition(), new ChessPiece(teamTurn, promotionPiece));
-        }
+        doMove(move);
+        getStatus();
+    }
 
-        ChessGame testGame = new ChessGame();
-        testGame.setBoard(testBoard);
-        testGame.setTeamTurn(teamTurn);
-        if (testGame.isInCheck(teamTurn)) {
-            throw new InvalidMoveException("Move would leave king in check");
-        }
+    /**
+     * Plays a move on the board without checking that it is legal, recording
+     * what it changed so {@link #undoMove()} can take it back. Handles captures,
+     * en passant, promotion and castling, and passes the turn to the other team.
+     * <br>
+     * Intended for legality testing and search: a doMove followed by undoMove
+     * leaves the game exactly as it was and never copies the board.
+     */
+    public void doMove(ChessMove move) {
+        doMove(encode(move));
+    }
 
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN &&
-                move.getStartPosition().getColumn() != move.getEndPosition().getColumn() &&
-                board.getPiece(move.getEndPosition()) == null) {
-            int capturedPawnRow = move.getStartPosition().getRow();
-            ChessPosition capturedPawnPos = new ChessPosition(capturedPawnRow, move.getEndPosition().getColumn());
-            board.addPiece(capturedPawnPos, null);
-        }
+    /**
+     * {@link #doMove(ChessMove)} for a move in the {@link Move} encoding, as
+     * produced by {@link #legalMoves(MoveList)}. The flags are trusted, so a
+     * hand-built move must describe the board it is played on.
+     */
+    public void doMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        ChessPiece piece = board.getPiece(from);
+
+        MoveUndo undo = pushUndo();
+        status = null;
+        undo.move = move;
+        undo.movedPiece = piece;
+        undo.state = state;
+        undo.teamTurn = teamTurn;
+        undo.halfmoveClock = halfmoveClock;
+        undo.positionKey = positionKey();
+
+        int capturedSquare = to;
+        if (flags == Move.EN_PASSANT) {
+            // The captured pawn sits beside the start square, not on the end square
+            capturedSquare = Bitboards.square(Bitboards.row(from), Bitboards.column(to));
+        }
+        undo.capturedSquare = capturedSquare;
+        undo.capturedPiece = Move.isCapture(move) ? board.getPiece(capturedSquare) : null;
+        if (undo.capturedPiece != null) {
+            board.addPiece(Bitboards.position(capturedSquare), null);
+        }
+
+        boolean isPawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = (isPawn || undo.capturedPiece != null) ? 0 : halfmoveClock + 1;
+
+        board.addPiece(Bitboards.position(from), null);
+        ChessPiece.PieceType promotion = Move.promotionType(move);
+        if (promotion != null) {
+            board.addPiece(Bitboards.position(to), ChessPiece.of(piece.getTeamColor(), promotion));
+        } else {
+            board.addPiece(Bitboards.position(to), piece);
+        }
+
+        if (Move.isCastle(move)) {
+            moveCastlingRook(from, to, false);
+        }
+
+        int castling = castlingRights() & ~(CASTLING_LOST[from] | CASTLING_LOST[to]);
+        int enPassant = flags == Move.DOUBLE_PAWN_PUSH ? (from + to) / 2 + 1 : 0;
+        state = castling | (enPassant << EN_PASSANT_SHIFT);
+        if (piece.getTeamColor() == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        teamTurn = (piece.getTeamColor() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    }
 
-        board.addPiece(move.getEndPosition(), piece);
-        board.addPiece(move.getStartPosition(), null);
-        piece.setMoved(true);
+    // Moves the rook of a castling king move across the king, or back when undoing
+    private void moveCastlingRook(int kingFrom, int kingTo, boolean undo) {
+        int rookCorner = kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+        int rookCastled = (kingFrom + kingTo) / 2;
+        int from = undo ? rookCastled : rookCorner;
+        int to = undo ? rookCorner : rookCastled;
+        ChessPiece rook = board.getPiece(from);
+        board.addPiece(Bitboards.position(from), null);
+        board.addPiece(Bitboards.position(to), rook);
+    }
 
+    // Encodes a move against the current board, working out the flags the primitive doMove relies on
+    private int encode(ChessMove move) {
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        ChessPiece piece = board.getPiece(from);
+        boolean capture = board.getPiece(to) != null;
         if (move.getPromotionPiece() != null) {
-            board.addPiece(move.getEndPosition(), new ChessPiece(teamTurn, move.getPromotionPiece()));
+            return Move.promotion(from, to, move.getPromotionPiece(), capture);
         }
-
-        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-
-        if (!(piece.getPieceType() == ChessPiece.PieceType.PAWN &&
-                Math.abs(move.getStartPosition().getRow() - move.getEndPosition().getRow()) == 2)) {
-            enPassantTarget = null;
+        if (capture) {
+            return Move.of(from, to, Move.CAPTURE);
         }
-    }
-
-    // Helper method to copy board state
-    private void copyBoard(ChessBoard source, ChessBoard destination) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                destination.addPiece(pos, source.getPiece(pos));
+        int columnChange = Bitboards.column(to) - Bitboards.column(from);
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            if (columnChange != 0) {
+                return Move.of(from, to, Move.EN_PASSANT);
             }
-        }
-    }
-    private boolean isPathBlocked(ChessPosition start, ChessPosition end) {
-        int rowStep = Integer.compare(end.getRow(), start.getRow());
-        int colStep = Integer.compare(end.getColumn(), start.getColumn());
-        int currentRow = start.getRow() + rowStep;
-        int currentCol = start.getColumn() + colStep;
-        while (currentRow != end.getRow() || currentCol != end.getColumn()) {
-            if (board.getPiece(new ChessPosition(currentRow, currentCol)) != null) {
-                return true;
+            if (Math.abs(to - from) == 16) {
+                return Move.of(from, to, Move.DOUBLE_PAWN_PUSH);
             }
-            currentRow += rowStep;
-            currentCol += colStep;
         }
-        return false;
+        if (piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(columnChange) == 2) {
+            return Move.of(from, to, columnChange > 0 ? Move.KINGSIDE_CASTLE : Move.QUEENSIDE_CASTLE);
+        }
+        return Move.of(from, to, Move.QUIET);
     }
-    // CASTLING HELPER METHODS START HERE
-    private boolean canCastle(ChessPosition kingPos, int direction) {
-        ChessPiece king = board.getPiece(kingPos);
-        if (king == null || king.hasMoved() || king.getPieceType() != ChessPiece.PieceType.KING ||
-                isInCheck(king.getTeamColor())) {
-            return false;
+
+    /**
+     * Takes back the most recent move made with {@link #doMove(ChessMove)},
+     * {@link #doMove(int)} or {@link #makeMove(ChessMove)}
+     */
+    public void undoMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to undo");
         }
+        MoveUndo undo = undoStack[--undoCount];
+        int move = undo.move;
+        status = null;
 
-        int rookCol = direction > 0 ? 8 : 1;
-        ChessPosition rookPos = new ChessPosition(kingPos.getRow(), rookCol);
-        ChessPiece rook = board.getPiece(rookPos);
-        if (rook == null || rook.hasMoved() || rook.getPieceType() != ChessPiece.PieceType.ROOK ||
-                rook.getTeamColor() != king.getTeamColor()) {
-            return false;
+        if (Move.isCastle(move)) {
+            moveCastlingRook(Move.from(move), Move.to(move), true);
         }
-        // Check path is clear
-        int step = direction > 0 ? 1 : -1;
-        for (int col = kingPos.getColumn() + step; col != rookCol; col += step) {
-            if (board.getPiece(new ChessPosition(kingPos.getRow(), col)) != null) {
-                return false;
-            }
+
+        board.addPiece(Bitboards.position(Move.to(move)), null);
+        board.addPiece(Bitboards.position(Move.from(move)), undo.movedPiece);
+        if (undo.capturedPiece != null) {
+            board.addPiece(Bitboards.position(undo.capturedSquare), undo.capturedPiece);
         }
-        // Check squares king moves through aren't under attack
-        for (int col = kingPos.getColumn(); col != kingPos.getColumn() + 2 * step + step; col += step) {
-            if (isSquareUnderAttack(new ChessPosition(kingPos.getRow(), col), king.getTeamColor())) {
-                return false;
-            }
+
+        state = undo.state;
+        if (undo.movedPiece.getTeamColor() == TeamColor.BLACK) {
+            fullmoveNumber--;
         }
-        return true;
+        teamTurn = undo.teamTurn;
+        halfmoveClock = undo.halfmoveClock;
     }
 
-    private boolean isSquareUnderAttack(ChessPosition position, TeamColor teamColor) {
-        TeamColor opponentColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-
-                if (piece == null || piece.getTeamColor() != opponentColor) {
-                    continue;
-                }
-
-                Collection<ChessMove> moves = piece.pieceMoves(board, pos);
-                for (ChessMove move : moves) {
-                    if (move.getEndPosition().equals(position)) {
-                        return true;
-                    }
-                }
-            }
+    private MoveUndo pushUndo() {
+        if (undoStack == null) {
+            undoStack = new MoveUndo[64]; // not restored by deserialization
         }
-        return false;
-    }
-
-
-    private void executeCastle(ChessMove move) throws InvalidMoveException {
-        ChessPiece king = board.getPiece(move.getStartPosition());
-        if (king == null || king.getPieceType() != ChessPiece.PieceType.KING) {
-            throw new InvalidMoveException("Invalid castling attempt");
-        }
-        int direction = move.getEndPosition().getColumn() > move.getStartPosition().getColumn() ? 1 : -1;
-        int rookCol = direction > 0 ? 8 : 1;
-        ChessPosition rookPos = new ChessPosition(move.getStartPosition().getRow(), rookCol);
-        ChessPiece rook = board.getPiece(rookPos);
-        // Move king
-        board.addPiece(move.getStartPosition(), null);
-        board.addPiece(move.getEndPosition(), king);
-        king.setMoved(true);
-        // Move rook
-        int newRookCol = move.getEndPosition().getColumn() - direction;
-        ChessPosition newRookPos = new ChessPosition(move.getEndPosition().getRow(), newRookCol);
-        board.addPiece(rookPos, null);
-        board.addPiece(newRookPos, rook);
-        rook.setMoved(true);
-        // Switch turns
-        teamTurn = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-    } // CASTLING HELPER METHODS END HERE
-
-    // Helper method to find king's position
-    private ChessPosition findKingPosition(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null &&
-                        piece.getPieceType() == ChessPiece.PieceType.KING &&
-                        piece.getTeamColor() == teamColor) {
-                    return position;
-                }
-            }
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
+        }
+        MoveUndo undo = undoStack[undoCount];
+        if (undo == null) {
+            undo = new MoveUndo();
+            undoStack[undoCount] = undo;
         }
-        return null; // shouldn't happen in valid game
+        undoCount++;
+        return undo;
     }
 
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKingPosition(teamColor);
-        if (kingPosition == null) {
+        int king = board.getKingSquare(teamColor);
+        if (king < 0) {
             return false;
         }
 
         TeamColor opponentColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece == null || piece.getTeamColor() != opponentColor) {
-                    continue;
-                }
-
-                Collection<ChessMove> moves = piece.pieceMoves(board, position);
-                for (ChessMove move : moves) {
-                    if (move.getEndPosition().equals(kingPosition)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return board.attackersOf(king, opponentColor) != 0;
     }
 
 
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
-        }
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece == null || piece.getTeamColor() != teamColor) {
-                    continue;
-                }
-
-                Collection<ChessMove> moves = piece.pieceMoves(board, position);
-                for (ChessMove move : moves) {
-                    // Try the move
-                    ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-                    board.addPiece(move.getEndPosition(), piece);
-                    board.addPiece(move.getStartPosition(), null);
-
-                    boolean stillInCheck = isInCheck(teamColor);
-
-                    // Undo the move
-                    board.addPiece(move.getStartPosition(), piece);
-                    board.addPiece(move.getEndPosition(), capturedPiece);
-
-                    if (!stillInCheck) {
-                        return false; // Found a move that gets out of check
-                    }
-                }
-            }
+        if (teamColor == teamTurn && resigned == null) {
+            return getStatus() == GameStatus.CHECKMATE;
         }
-        return true; // No moves get out of check
+        return isInCheck(teamColor) && !hasValidMove(teamColor);
     }
 
 
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false; // Can't be stalemate if in check
+        if (teamColor == teamTurn && resigned == null) {
+            return getStatus() == GameStatus.STALEMATE;
         }
+        return !isInCheck(teamColor) && !hasValidMove(teamColor);
+    }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece == null || piece.getTeamColor() != teamColor) {
-                    continue;
-                }
-
-                Collection<ChessMove> moves = piece.pieceMoves(board, position);
-                for (ChessMove move : moves) {
-                    // Try the move to see if it would leave king in check
-                    ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
-                    board.addPiece(move.getEndPosition(), piece);
-                    board.addPiece(move.getStartPosition(), null);
-
-                    boolean inCheckAfterMove = isInCheck(teamColor);
-
-                    // Undo the move
-                    board.addPiece(move.getStartPosition(), piece);
-                    board.addPiece(move.getEndPosition(), capturedPiece);
-
-                    if (!inCheckAfterMove) {
-                        return false; // Found a valid move
-                    }
-                }
-            }
+    // True if any piece of the team has a legal move, including castling, en passant and promotion
+    private boolean hasValidMove(TeamColor teamColor) {
+        if (scratchMoves == null) {
+            scratchMoves = new MoveList();
         }
-        return true; // No valid moves found
+        scratchMoves.clear();
+        moveGenerator().generate(this, teamColor, ~0L, scratchMoves);
+        return !scratchMoves.isEmpty();
     }
 
 
     public void setBoard(ChessBoard board) {
         this.board = board;
-        this.board.setGame(this);
+        this.undoCount = 0;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+        this.state = castlingRightsFromBoard(board);
+        this.resigned = null;
+        this.adjudicated = null;
+        this.status = null;
+    }
+
+    // A board carries no history, so assume every king and rook still on its starting square is unmoved
+    private static int castlingRightsFromBoard(ChessBoard board) {
+        int rights = 0;
+        if (isUnmovedCastlingPair(board, TeamColor.WHITE, 8)) {
+            rights |= WHITE_KINGSIDE;
+        }
+        if (isUnmovedCastlingPair(board, TeamColor.WHITE, 1)) {
+            rights |= WHITE_QUEENSIDE;
+        }
+        if (isUnmovedCastlingPair(board, TeamColor.BLACK, 8)) {
+            rights |= BLACK_KINGSIDE;
+        }
+        if (isUnmovedCastlingPair(board, TeamColor.BLACK, 1)) {
+            rights |= BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    private static boolean isUnmovedCastlingPair(ChessBoard board, TeamColor color, int rookColumn) {
+        int homeRow = (color == TeamColor.WHITE) ? 1 : 8;
+        return ChessPiece.of(color, ChessPiece.PieceType.KING).equals(board.getPiece(Bitboards.square(homeRow, 5))) &&
+                ChessPiece.of(color, ChessPiece.PieceType.ROOK).equals(board.getPiece(Bitboards.square(homeRow, rookColumn)));
     }
 
     public ChessBoard getBoard() {
         return board;
     }
 
+    /**
+     * 64-bit Zobrist key of the position: piece placement, side to move,
+     * castling rights and en passant file. The file only counts when a pawn
+     * can actually capture there, so transpositions that differ only in a
+     * dead en passant square get the same key.
+     */
+    public long positionKey() {
+        long key = board.getKey() ^ Zobrist.castling(castlingRights());
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.blackToMove();
+        }
+        int enPassant = enPassantSquare();
+        if (enPassant >= 0) {
+            TeamColor mover = (teamTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+            // Squares a pawn of the side to move would capture from are the mover's pawn attacks from the target
+            long capturers = Attacks.pawnAttacks(mover, enPassant) & board.getPieces(teamTurn, ChessPiece.PieceType.PAWN);
+            if (capturers != 0) {
+                key ^= Zobrist.enPassantFile(Bitboards.column(enPassant));
+            }
+        }
+        return key;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -467,15 +686,13 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        if (teamTurn != chessGame.teamTurn) {
+        if (teamTurn != chessGame.teamTurn || positionKey() != chessGame.positionKey()) {
             return false;
         }
         return Objects.equals(board, chessGame.board);
     }
     @Override
     public int hashCode() {
-        int result = teamTurn != null ? teamTurn.hashCode() : 0;
-        result = 31 * result + (board != null ? board.hashCode() : 0);
-        return result;
+        return Long.hashCode(positionKey());
     }
 }
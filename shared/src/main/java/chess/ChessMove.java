@@ -4,6 +4,11 @@ import java.util.Objects;
 
 public class ChessMove {
 
+    // Promotion pieces by their letter in coordinate notation
+    private static final String PROMOTION_LETTERS = "nbrq";
+    private static final ChessPiece.PieceType[] PROMOTIONS = {ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
@@ -27,6 +32,43 @@ public class ChessMove {
         return promotionPiece;
     }
 
+    /**
+     * Parses a move in coordinate notation, as UCI and Polyglot tools write
+     * it: "e2e4", or "e7e8q" with the promotion piece's letter
+     *
+     * @throws IllegalArgumentException if the text is not a move in that notation
+     */
+    public static ChessMove fromUci(String text) {
+        int promotion = text.length() == 5 ? PROMOTION_LETTERS.indexOf(text.charAt(4)) : -1;
+        if ((text.length() != 4 && promotion < 0) || !isSquare(text, 0) || !isSquare(text, 2)) {
+            throw new IllegalArgumentException("Not a move in coordinate notation: " + text);
+        }
+        return new ChessMove(new ChessPosition(text.charAt(1) - '0', text.charAt(0) - 'a' + 1),
+                new ChessPosition(text.charAt(3) - '0', text.charAt(2) - 'a' + 1),
+                promotion >= 0 ? PROMOTIONS[promotion] : null);
+    }
+
+    private static boolean isSquare(String text, int index) {
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        return file >= 'a' && file <= 'h' && rank >= '1' && rank <= '8';
+    }
+
+    /**
+     * The move in coordinate notation, e.g. "e2e4" or "e7e8q"
+     */
+    public String toUci() {
+        String text = startPosition.toString() + endPosition;
+        if (promotionPiece != null) {
+            for (int i = 0; i < PROMOTIONS.length; i++) {
+                if (PROMOTIONS[i] == promotionPiece) {
+                    text += PROMOTION_LETTERS.charAt(i);
+                }
+            }
+        }
+        return text;
+    }
+
     @Override
     public String toString() {
         String promotion = promotionPiece != null ? " promote to " + promotionPiece : "";
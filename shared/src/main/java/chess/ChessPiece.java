@@ -4,33 +4,41 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Objects;
 
+/**
+ * A kind of piece: a color and a type.
+ * <br>
+ * Pieces are immutable and carry no game state (castling rights and en
+ * passant live on ChessGame), so one shared instance per kind from
+ * {@link #of} serves every board and boards can be copied as flat arrays.
+ * Separately constructed pieces compare equal to the shared ones.
+ */
 public class ChessPiece {
-    private final ChessGame.TeamColor pieceColor;
-    private final PieceType type;
-    private ChessGame game;
-    private boolean hasMoved = false;
+    private static final ChessPiece[][] PIECES =
+            new ChessPiece[ChessGame.TeamColor.values().length][PieceType.values().length];
 
-    // hasMoved setMoved added for castling
-    public boolean hasMoved() {
-        return hasMoved;
-    }
-    public void setMoved(boolean moved) {
-        this.hasMoved = moved;
-    }
-
-    public void setGame(ChessGame game) {
-        this.game = game;
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal()][type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
     }
 
-    public ChessGame getGame() {
-        return this.game;
-    }
+    private final ChessGame.TeamColor pieceColor;
+    private final PieceType type;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * The shared instance for a color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal()][type.ordinal()];
+    }
+
     public enum PieceType {
         KING,
         QUEEN,
@@ -61,75 +69,19 @@ public class ChessPiece {
         }
     }
 
-    //Helper method for King, Knight
-    private void stepMove(ChessPosition myPosition, ChessBoard board, Collection<ChessMove> moves, int[][] directions) {
-        for (int[] direction : directions) {
-            int row = myPosition.getRow() + direction[0];
-            int col = myPosition.getColumn() + direction[1];
-
-            if (row < 1 || row > 8 || col < 1 || col > 8) {
-                continue; // skip if outside board
-            }
-
-            ChessPosition newPosition = new ChessPosition(row, col);
-            ChessPiece pieceAtPosition = board.getPiece(newPosition);
-
-            if (pieceAtPosition == null || pieceAtPosition.getTeamColor() != this.getTeamColor()) {
-                moves.add(new ChessMove(myPosition, newPosition, null));
-            }
+    // Adds one non-promoting move per set bit of targets
+    private static void addMoves(ChessPosition myPosition, long targets, Collection<ChessMove> moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(new ChessMove(myPosition, Bitboards.position(Long.numberOfTrailingZeros(targets)), null));
         }
     }
 
-    //Helper method for Queen, Bishop and Rook
-    private void slidingMove(ChessPosition myPosition, ChessBoard board, Collection<ChessMove> moves, int[][] directions) {
-        for (int[] direction : directions) {
-            int row = myPosition.getRow() + direction[0];
-            int col = myPosition.getColumn() + direction[1];
-
-            while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
-                ChessPosition newPosition = new ChessPosition(row, col);
-                ChessPiece pieceAtPosition = board.getPiece(newPosition);
-
-                if (pieceAtPosition == null || pieceAtPosition.getTeamColor() != this.getTeamColor()) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                }
-
-                if (pieceAtPosition != null) {
-                    break;
-                }
-
-                row += direction[0];
-                col += direction[1];
-            }
-        }
-    }
-
-    //Helper method
-    private void checkAndAddEnPassantMove(ChessBoard board, ChessPosition myPosition, int direction, int captureCol, Collection<ChessMove> moves) {
-        ChessGame game = this.game;
-        if (game == null){
-            return;
-        }
-
-        ChessPosition enPassantTarget = game.getEnPassantTarget();
-        if (enPassantTarget == null){
-            return;
-        }
-
-        if (enPassantTarget.getRow() != myPosition.getRow() + direction || enPassantTarget.getColumn() != captureCol){
-            return;
-        }
-
-        ChessPosition opponentPawnPos = new ChessPosition(myPosition.getRow(), captureCol);
-        ChessPiece opponentPawn = board.getPiece(opponentPawnPos);
-
-        if (opponentPawn != null &&
-                opponentPawn.getPieceType() == PieceType.PAWN &&
-                opponentPawn.getTeamColor() != this.getTeamColor()) {
-
-            moves.add(new ChessMove(myPosition, enPassantTarget, null));
-            System.out.println("[DEBUG] En Passant move generated: " + myPosition + " -> " + enPassantTarget);
-        }
+    /**
+     * Squares this piece attacks from the given square. Pawns attack their two
+     * forward diagonals only; pushes are not attacks.
+     */
+    long attacks(ChessBoard board, int square) {
+        return Attacks.attacks(type, pieceColor, square, board.getOccupied());
     }
 
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
@@ -137,71 +89,44 @@ public class ChessPiece {
         ChessPiece.PieceType type = this.type;
 
         switch(type){
-            case KING:
-                int[][] kingDirections = {
-                        {1,-1},{1,0},{1,1},{0,-1},{0,1},{-1,-1},{-1,0},{-1,1}
-                };
-                stepMove(myPosition, board, moves, kingDirections);
-                break;
-            case QUEEN:
-                int[][] queenDirections = {
-                        {1,-1},{1,0},{1,1},{0,-1},{0,1},{-1,-1},{-1,0},{-1,1}
-                };
-                slidingMove(myPosition, board, moves, queenDirections);
-                break;
-            case BISHOP:
-                int[][] bishopDirections = {
-                        {1,-1},{1,1},{-1,-1},{-1,1}
-                };
-                slidingMove(myPosition, board, moves, bishopDirections);
-                break;
-            case ROOK:
-                int[][] rookDirections = {
-                        {0,-1},{0,1},{1,0},{-1,0}
-                };
-                slidingMove(myPosition, board, moves, rookDirections);
-                break;
-            case KNIGHT:
-                int[][] knightDirections = {
-                        {2,-1},{2,1},{1,-2},{1,2},{-1,-2},{-1,2},{-2,-1},{-2,1}
-                };
-                stepMove(myPosition, board, moves, knightDirections);
+            case KING, QUEEN, BISHOP, ROOK, KNIGHT:
+                long targets = attacks(board, Bitboards.square(myPosition));
+                addMoves(myPosition, targets & ~board.getOccupancy(pieceColor), moves);
                 break;
             case PAWN:
                 int direction = (this.getTeamColor() == ChessGame.TeamColor.WHITE) ? 1 : -1;
                 int startRow = (this.getTeamColor() == ChessGame.TeamColor.WHITE) ? 2 : 7;
                 int promotionRow = (this.getTeamColor() == ChessGame.TeamColor.WHITE) ? 8 : 1;
 
+                int forwardRow = myPosition.getRow() + direction;
+                if (forwardRow < 1 || forwardRow > 8) {
+                    break;
+                }
+                long empty = ~board.getOccupied();
+
                 // Single forward move
-                ChessPosition oneForward = new ChessPosition(myPosition.getRow() + direction, myPosition.getColumn());
-                if (oneForward.getRow() >= 1 && oneForward.getRow() <= 8 && board.getPiece(oneForward) == null) {
-                    addPawnMoveIfValid(board, myPosition, oneForward, promotionRow, moves);
+                int oneForward = Bitboards.square(forwardRow, myPosition.getColumn());
+                if ((empty & Bitboards.bit(oneForward)) != 0) {
+                    addPawnMoveIfValid(board, myPosition, Bitboards.position(oneForward), promotionRow, moves);
 
                     // Double move from start row
                     if (myPosition.getRow() == startRow) {
-                        ChessPosition twoForward = new ChessPosition(myPosition.getRow() + 2 * direction, myPosition.getColumn());
-                        if (board.getPiece(twoForward) == null) {
-                            moves.add(new ChessMove(myPosition, twoForward, null));
+                        int twoForward = Bitboards.square(forwardRow + direction, myPosition.getColumn());
+                        if ((empty & Bitboards.bit(twoForward)) != 0) {
+                            moves.add(new ChessMove(myPosition, Bitboards.position(twoForward), null));
                         }
                     }
                 }
 
-                // Diagonal captures and En Passant
-                for (int dCol = -1; dCol <= 1; dCol += 2) {
-                    int captureCol = myPosition.getColumn() + dCol;
-                    if (captureCol < 1 || captureCol > 8){
-                        continue;
-                    }
-
-                    ChessPosition diagonal = new ChessPosition(myPosition.getRow() + direction, captureCol);
-                    ChessPiece target = board.getPiece(diagonal);
-
-                    if (target != null && target.getTeamColor() != this.getTeamColor()) {
-                        addPawnMoveIfValid(board, myPosition, diagonal, promotionRow, moves);
-                    }
-
-                    checkAndAddEnPassantMove(board, myPosition, direction, captureCol, moves);
+                // Diagonal captures
+                ChessGame.TeamColor opponent = (pieceColor == ChessGame.TeamColor.WHITE)
+                        ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                long captures = attacks(board, Bitboards.square(myPosition)) & board.getOccupancy(opponent);
+                for (; captures != 0; captures &= captures - 1) {
+                    ChessPosition diagonal = Bitboards.position(Long.numberOfTrailingZeros(captures));
+                    addPawnMoveIfValid(board, myPosition, diagonal, promotionRow, moves);
                 }
+                // En passant needs the game's state, so ChessGame.validMoves adds it
                 break;
         }
         return moves;
@@ -0,0 +1,28 @@
+package chess;
+
+/**
+ * Decides which position a full {@link MoveCache} gives up to make room for
+ * a new one, and whether the new one is worth the room at all.
+ * <br>
+ * The cache calls a policy while holding its lock, so implementations need
+ * no synchronization of their own. Access records are dropped when another
+ * thread holds the lock, so a policy sees most lookups but not every one.
+ */
+public interface EvictionPolicy {
+
+    /**
+     * A lookup of the key, whether or not the cache held it
+     */
+    void recordAccess(long key);
+
+    /**
+     * The key was stored in the cache
+     */
+    void recordInsert(long key);
+
+    /**
+     * Picks a key to evict so the candidate can be stored, and forgets it.
+     * Returning the candidate itself rejects it and leaves the cache as it is.
+     */
+    long evict(long candidate);
+}
@@ -0,0 +1,186 @@
+package chess;
+
+/**
+ * Forsyth-Edwards Notation reader and writer behind ChessGame.fromFen and
+ * ChessGame.toFen.
+ * <br>
+ * A FEN record is six space separated fields: piece placement from row 8
+ * down to row 1, side to move, castling rights, en passant target, halfmove
+ * clock and fullmove number. The two clocks may be left off, as many tools
+ * do, and default to 0 and 1.
+ */
+final class Fen {
+
+    private Fen() {
+    }
+
+    static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4 || fields.length > 6) {
+            throw invalid(fen, "expected 4 to 6 fields");
+        }
+
+        ChessGame.TeamColor teamTurn = switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw invalid(fen, "side to move must be w or b");
+        };
+        ChessGame game = new ChessGame(parseBoard(fen, fields[0]), teamTurn);
+        game.setCastlingRights(parseCastling(fen, fields[2]));
+        game.setEnPassantTarget(parseSquare(fen, fields[3]));
+        game.setHalfmoveClock(fields.length > 4 ? parseNumber(fen, fields[4], 0) : 0);
+        game.setFullmoveNumber(fields.length > 5 ? parseNumber(fen, fields[5], 1) : 1);
+        return game;
+    }
+
+    static String format(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        ChessBoard board = game.getBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(pieceChar(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.BLACK ? " b " : " w ");
+
+        int rights = game.castlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        } else {
+            appendIf(fen, rights, ChessGame.WHITE_KINGSIDE, 'K');
+            appendIf(fen, rights, ChessGame.WHITE_QUEENSIDE, 'Q');
+            appendIf(fen, rights, ChessGame.BLACK_KINGSIDE, 'k');
+            appendIf(fen, rights, ChessGame.BLACK_QUEENSIDE, 'q');
+        }
+
+        ChessPosition enPassant = game.getEnPassantTarget();
+        fen.append(' ').append(enPassant != null ? enPassant.toString() : "-");
+        fen.append(' ').append(game.getHalfmoveClock());
+        fen.append(' ').append(game.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    private static ChessBoard parseBoard(String fen, String placement) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int col = 1;
+        for (int i = 0; i < placement.length(); i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                if (col != 9) {
+                    throw invalid(fen, "row " + row + " does not have 8 squares");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                if (col > 8 || row < 1) {
+                    throw invalid(fen, "too many squares in the placement");
+                }
+                board.addPiece(Bitboards.position(Bitboards.square(row, col)), piece(fen, c));
+                col++;
+            }
+            if (col > 9) {
+                throw invalid(fen, "row " + row + " has more than 8 squares");
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw invalid(fen, "placement must describe 8 rows of 8 squares");
+        }
+        return board;
+    }
+
+    private static ChessPiece piece(String fen, char c) {
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw invalid(fen, "unknown piece '" + c + "'");
+        };
+        return ChessPiece.of(color, type);
+    }
+
+    private static char pieceChar(ChessPiece piece) {
+        char c = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c;
+    }
+
+    private static int parseCastling(String fen, String field) {
+        if (field.equals("-")) {
+            return 0;
+        }
+        int rights = 0;
+        for (int i = 0; i < field.length(); i++) {
+            rights |= switch (field.charAt(i)) {
+                case 'K' -> ChessGame.WHITE_KINGSIDE;
+                case 'Q' -> ChessGame.WHITE_QUEENSIDE;
+                case 'k' -> ChessGame.BLACK_KINGSIDE;
+                case 'q' -> ChessGame.BLACK_QUEENSIDE;
+                default -> throw invalid(fen, "bad castling rights '" + field + "'");
+            };
+        }
+        return rights;
+    }
+
+    private static ChessPosition parseSquare(String fen, String field) {
+        if (field.equals("-")) {
+            return null;
+        }
+        if (field.length() != 2 || field.charAt(0) < 'a' || field.charAt(0) > 'h' ||
+                field.charAt(1) < '1' || field.charAt(1) > '8') {
+            throw invalid(fen, "bad en passant square '" + field + "'");
+        }
+        return Bitboards.position(Bitboards.square(field.charAt(1) - '0', field.charAt(0) - 'a' + 1));
+    }
+
+    private static int parseNumber(String fen, String field, int minimum) {
+        try {
+            int value = Integer.parseInt(field);
+            if (value >= minimum) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw invalid(fen, "bad move counter '" + field + "'");
+    }
+
+    private static void appendIf(StringBuilder fen, int rights, int right, char c) {
+        if ((rights & right) != 0) {
+            fen.append(c);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN \"" + fen + "\": " + reason);
+    }
+}
@@ -0,0 +1,20 @@
+package chess;
+
+/**
+ * Where a game stands for the team whose turn it is
+ */
+public enum GameStatus {
+    ONGOING,
+    CHECK,
+    CHECKMATE,
+    STALEMATE,
+    // Threefold repetition or the seventy-five-move rule
+    DRAW,
+    RESIGNED,
+    // Ended by the endgame bitbase's result, see ChessGame.adjudicate
+    ADJUDICATED;
+
+    public boolean isGameOver() {
+        return this != ONGOING && this != CHECK;
+    }
+}
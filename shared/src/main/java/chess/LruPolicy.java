@@ -0,0 +1,42 @@
+package chess;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Evicts the least recently used position and admits every new one
+ */
+final class LruPolicy implements EvictionPolicy {
+
+    // Keys from least to most recently used
+    private final LinkedHashMap<Long, Boolean> order;
+
+    LruPolicy(int capacity) {
+        this.order = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+    }
+
+    @Override
+    public void recordAccess(long key) {
+        order.get(key);
+    }
+
+    @Override
+    public void recordInsert(long key) {
+        order.put(key, Boolean.TRUE);
+    }
+
+    @Override
+    public long evict(long candidate) {
+        return leastRecent(true);
+    }
+
+    // Least recently used key, optionally forgetting it
+    long leastRecent(boolean remove) {
+        Iterator<Long> eldest = order.keySet().iterator();
+        long key = eldest.next();
+        if (remove) {
+            eldest.remove();
+        }
+        return key;
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+/**
+ * Compact move encoding used by move generation and search.
+ * <br>
+ * A move is packed into the low 16 bits of an int: the from square in bits
+ * 0-5, the to square in bits 6-11 and a 4-bit flag in bits 12-15 saying what
+ * kind of move it is. Promotion flags carry the piece in their low two bits
+ * and all capture flags have bit 2 set, so the common questions are single
+ * mask tests. {@link ChessMove} is only built at the API boundary.
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KINGSIDE_CASTLE = 2;
+    public static final int QUEENSIDE_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    // Promotion pieces by the low two flag bits
+    private static final ChessPiece.PieceType[] PROMOTION_TYPES = {
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN
+    };
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * A promotion to the given piece, with the capture flag if capture is set
+     */
+    public static int promotion(int from, int to, ChessPiece.PieceType type, boolean capture) {
+        int piece = switch (type) {
+            case KNIGHT -> 0;
+            case BISHOP -> 1;
+            case ROOK -> 2;
+            case QUEEN -> 3;
+            default -> throw new IllegalArgumentException("Cannot promote to " + type);
+        };
+        return of(from, to, (capture ? PROMOTION_CAPTURE : PROMOTION) | piece);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & (CAPTURE << 12)) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & (PROMOTION << 12)) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KINGSIDE_CASTLE || flags == QUEENSIDE_CASTLE;
+    }
+
+    /**
+     * The piece a promotion turns into, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotionType(int move) {
+        return isPromotion(move) ? PROMOTION_TYPES[flags(move) & 3] : null;
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotionType(move));
+    }
+
+    /**
+     * Coordinate notation, e.g. e2e4 or e7e8q
+     */
+    public static String toString(int move) {
+        return toChessMove(move).toUci();
+    }
+}
@@ -0,0 +1,142 @@
+package chess;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of legal moves by position, shared by every game.
+ * <br>
+ * Games in the same opening reach the same positions again and again, and
+ * clients ask for the legal moves of each one several times, so ChessGame
+ * looks positions up here by their Zobrist key before generating moves. An
+ * entry holds the side to move's legal moves and the position's status
+ * apart from the draw rules; those depend on the game's history and are
+ * always worked out by the game.
+ * <br>
+ * Lookups read a concurrent map without locking. Inserts, and the eviction
+ * policy's bookkeeping, run under one lock; lookups skip the bookkeeping
+ * rather than wait for it. An entry also keeps the occupancy of the board
+ * it was made for, and a game ignores an entry that does not match its own
+ * board, so a key collision cannot hand a game another position's moves
+ * unless the pieces also stand on the same squares.
+ */
+public final class MoveCache {
+
+    private final int capacity;
+    private final EvictionPolicy policy;
+    private final ConcurrentHashMap<Long, Entry> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MoveCache(int capacity, EvictionPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.entries = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    public static MoveCache lru(int capacity) {
+        return new MoveCache(capacity, new LruPolicy(capacity));
+    }
+
+    public static MoveCache tinyLfu(int capacity) {
+        return new MoveCache(capacity, new TinyLfuPolicy(capacity));
+    }
+
+    /**
+     * Legal moves and status of a position, never modified once cached
+     */
+    static final class Entry {
+        final int[] moves;
+        // CHECKMATE, STALEMATE, CHECK or ONGOING; the draw rules are left to the game
+        final GameStatus status;
+        private final long occupied;
+        private final long white;
+
+        Entry(int[] moves, GameStatus status, ChessBoard board) {
+            this.moves = moves;
+            this.status = status;
+            this.occupied = board.getOccupied();
+            this.white = board.getOccupancy(ChessGame.TeamColor.WHITE);
+        }
+
+        // False when the entry was made for a different position whose key collides
+        boolean matches(ChessBoard board) {
+            return occupied == board.getOccupied() && white == board.getOccupancy(ChessGame.TeamColor.WHITE);
+        }
+    }
+
+    Entry get(long key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        if (lock.tryLock()) {
+            try {
+                policy.recordAccess(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return entry;
+    }
+
+    void put(long key, Entry entry) {
+        lock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                entries.put(key, entry);
+                return;
+            }
+            if (entries.size() >= capacity) {
+                long victim = policy.evict(key);
+                if (victim == key) {
+                    return;
+                }
+                entries.remove(victim);
+                evictions.increment();
+            }
+            entries.put(key, entry);
+            policy.recordInsert(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Share of lookups answered from the cache, or 0 before the first lookup
+     */
+    public double hitRate() {
+        long hitCount = hitCount();
+        long total = hitCount + missCount();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,183 @@
+package chess;
+
+/**
+ * Legal move generator.
+ * <br>
+ * Instead of generating pseudo-legal moves and testing each one for check,
+ * it works out once per position which enemy pieces give check and which of
+ * our pieces are pinned (and along which ray). Every other piece's moves are
+ * then restricted by those masks, so only legal moves are ever produced. King
+ * steps and castling squares are tested with ChessBoard.attackersOf, and en
+ * passant is checked by re-testing the king, since it removes two pieces
+ * from the same row at once.
+ */
+final class MoveGenerator {
+
+    /**
+     * Adds every legal move for the team's pieces on the from squares to moves
+     */
+    void generate(ChessGame game, ChessGame.TeamColor us, long fromSquares, MoveList moves) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor them = (us == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long own = board.getOccupancy(us);
+        long enemy = board.getOccupancy(them);
+        long occupied = own | enemy;
+        int kingSquare = board.getKingSquare(us);
+        long king = kingSquare >= 0 ? Bitboards.bit(kingSquare) : 0L;
+
+        long checkers = king != 0 ? board.attackersOf(kingSquare, them) : 0L;
+
+        // Non-king moves must capture the checker or block its ray; with two checkers only the king can move
+        long checkMask = ~0L;
+        if (Long.bitCount(checkers) > 1) {
+            checkMask = 0L;
+        } else if (checkers != 0) {
+            checkMask = checkers | Bitboards.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        }
+
+        long pinned = king != 0 ? findPins(board, them, kingSquare, own, enemy) : 0L;
+
+        for (long pieces = own & fromSquares & ~king; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            ChessPiece piece = board.getPiece(square);
+            long allowed = checkMask;
+            if ((pinned & Bitboards.bit(square)) != 0) {
+                // A pinned piece stays on the line through its king and pinner
+                allowed &= Bitboards.line(kingSquare, square);
+            }
+
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                addPawnMoves(game, us, square, allowed, occupied, enemy, kingSquare, moves);
+            } else {
+                long targets = Attacks.attacks(piece.getPieceType(), us, square, occupied) & ~own & allowed;
+                addMoves(square, targets, enemy, moves);
+            }
+        }
+
+        if ((king & fromSquares) != 0) {
+            // Lift the king off so a slider's ray carries on past it and the king cannot step back along the ray
+            long withoutKing = occupied & ~king;
+            long targets = Attacks.kingAttacks(kingSquare) & ~own;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                if (board.attackersOf(to, them, withoutKing) == 0) {
+                    moves.add(Move.of(kingSquare, to, (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET));
+                }
+            }
+            if (checkers == 0) {
+                addCastles(board, us, game.castlingRights(), kingSquare, occupied, moves);
+            }
+        }
+    }
+
+    // Marks our pieces that are the only thing between an enemy slider and our king, recording their pin rays
+    private static long findPins(ChessBoard board, ChessGame.TeamColor them, int kingSquare, long own, long enemy) {
+        long queens = board.getPieces(them, ChessPiece.PieceType.QUEEN);
+        // Rays from the king that pass through our own pieces and stop at the first enemy piece
+        long pinners = (Attacks.rookAttacks(kingSquare, enemy) & (board.getPieces(them, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishopAttacks(kingSquare, enemy) & (board.getPieces(them, ChessPiece.PieceType.BISHOP) | queens));
+
+        long pinned = 0L;
+        for (; pinners != 0; pinners &= pinners - 1) {
+            int pinner = Long.numberOfTrailingZeros(pinners);
+            long blockers = Bitboards.between(kingSquare, pinner) & own;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private void addPawnMoves(ChessGame game, ChessGame.TeamColor us, int square, long allowed,
+                              long occupied, long enemy, int kingSquare, MoveList moves) {
+        boolean white = us == ChessGame.TeamColor.WHITE;
+        int forward = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+
+        long pushes = 0L;
+        int oneForward = square + forward;
+        if (oneForward >= 0 && oneForward < 64 && (occupied & Bitboards.bit(oneForward)) == 0) {
+            pushes |= Bitboards.bit(oneForward);
+            int twoForward = oneForward + forward;
+            if (Bitboards.row(square) == startRow && (occupied & Bitboards.bit(twoForward)) == 0) {
+                pushes |= Bitboards.bit(twoForward);
+            }
+        }
+        long targets = (pushes | (Attacks.pawnAttacks(us, square) & enemy)) & allowed;
+
+        int promotionRow = white ? 8 : 1;
+        for (; targets != 0; targets &= targets - 1) {
+            int target = Long.numberOfTrailingZeros(targets);
+            boolean capture = (enemy & Bitboards.bit(target)) != 0;
+            if (Bitboards.row(target) == promotionRow) {
+                int flags = capture ? Move.PROMOTION_CAPTURE : Move.PROMOTION;
+                // Queen first so the likeliest choice comes first
+                for (int piece = 3; piece >= 0; piece--) {
+                    moves.add(Move.of(square, target, flags | piece));
+                }
+            } else if (capture) {
+                moves.add(Move.of(square, target, Move.CAPTURE));
+            } else {
+                moves.add(Move.of(square, target, target == oneForward ? Move.QUIET : Move.DOUBLE_PAWN_PUSH));
+            }
+        }
+
+        int target = game.enPassantSquare();
+        if (target >= 0) {
+            int captured = target - forward;
+            ChessPiece capturedPiece = game.getBoard().getPiece(captured);
+            if ((Attacks.pawnAttacks(us, square) & Bitboards.bit(target)) != 0 &&
+                    capturedPiece != null && capturedPiece.getPieceType() == ChessPiece.PieceType.PAWN &&
+                    capturedPiece.getTeamColor() != us &&
+                    !exposesKingAfterEnPassant(game.getBoard(), us, square, target, captured, kingSquare)) {
+                moves.add(Move.of(square, target, Move.EN_PASSANT));
+            }
+        }
+    }
+
+    // En passant empties two squares and fills one, so just check the king against the resulting board
+    private static boolean exposesKingAfterEnPassant(ChessBoard board, ChessGame.TeamColor us,
+                                                     int from, int to, int captured, int kingSquare) {
+        if (kingSquare < 0) {
+            return false; // no king on the board
+        }
+        ChessGame.TeamColor them = (us == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long occupied = (board.getOccupied() & ~Bitboards.bit(from) & ~Bitboards.bit(captured)) | Bitboards.bit(to);
+        // attackersOf only reports pieces still in the occupancy, so the captured pawn drops out
+        return board.attackersOf(kingSquare, them, occupied) != 0;
+    }
+
+    private static void addCastles(ChessBoard board, ChessGame.TeamColor us, int rights, int kingSquare,
+                                   long occupied, MoveList moves) {
+        boolean white = us == ChessGame.TeamColor.WHITE;
+        int homeRow = white ? 1 : 8;
+        if (kingSquare != Bitboards.square(homeRow, 5)) {
+            return;
+        }
+        ChessGame.TeamColor them = white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        ChessPiece rook = ChessPiece.of(us, ChessPiece.PieceType.ROOK);
+        for (int direction = -1; direction <= 1; direction += 2) {
+            int right = direction > 0
+                    ? (white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE)
+                    : (white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE);
+            int rookSquare = Bitboards.square(homeRow, direction > 0 ? 8 : 1);
+            // The rook check guards against boards edited behind the game's back
+            if ((rights & right) == 0 || !rook.equals(board.getPiece(rookSquare))) {
+                continue;
+            }
+            if ((Bitboards.between(kingSquare, rookSquare) & occupied) == 0 &&
+                    board.attackersOf(kingSquare + direction, them) == 0 &&
+                    board.attackersOf(kingSquare + 2 * direction, them) == 0) {
+                moves.add(Move.of(kingSquare, kingSquare + 2 * direction,
+                        direction > 0 ? Move.KINGSIDE_CASTLE : Move.QUEENSIDE_CASTLE));
+            }
+        }
+    }
+
+    private static void addMoves(int from, long targets, long enemy, MoveList moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(Move.of(from, to, (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET));
+        }
+    }
+}
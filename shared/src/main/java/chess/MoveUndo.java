@@ -0,0 +1,36 @@
+package chess;
+
+/**
+ * Everything ChessGame.undoMove needs to put the game back the way it was
+ * before a doMove. Records live on a per-game stack and are reused, so
+ * making and unmaking moves does not allocate.
+ */
+final class MoveUndo {
+    int move;
+    // Pieces are shared values, so keeping them here holds nothing alive
+    ChessPiece movedPiece;
+    ChessPiece capturedPiece;
+    int capturedSquare;
+
+    // Castling rights and en passant target
+    int state;
+    ChessGame.TeamColor teamTurn;
+    int halfmoveClock;
+
+    // Key of the position before the move; the stack doubles as the game's repetition history
+    long positionKey;
+
+    MoveUndo() {
+    }
+
+    MoveUndo(MoveUndo other) {
+        this.move = other.move;
+        this.movedPiece = other.movedPiece;
+        this.capturedPiece = other.capturedPiece;
+        this.capturedSquare = other.capturedSquare;
+        this.state = other.state;
+        this.teamTurn = other.teamTurn;
+        this.halfmoveClock = other.halfmoveClock;
+        this.positionKey = other.positionKey;
+    }
+}
@@ -0,0 +1,106 @@
+package chess;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Move generator correctness and speed check.
+ * <br>
+ * Perft counts the leaf nodes of the full legal move tree to a fixed depth.
+ * The counts for well known positions are published, so any difference points
+ * at a move generation bug, and "divide" (the count under each root move)
+ * narrows it down to a single line.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes reachable from the game's current position in
+     * exactly depth plies. The game is left unchanged.
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, moveLists(depth));
+    }
+
+    /**
+     * Perft split by root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        MoveList[] moveLists = moveLists(depth);
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(rootMoves);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            game.doMove(move);
+            counts.put(Move.toChessMove(move), perft(game, depth - 1, moveLists));
+            game.undoMove();
+        }
+        return counts;
+    }
+
+    // One move list per remaining depth, so the walk itself never allocates
+    private static long perft(ChessGame game, int depth, MoveList[] moveLists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = moveLists[depth];
+        game.legalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            nodes += perft(game, depth - 1, moveLists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    private static MoveList[] moveLists(int depth) {
+        MoveList[] moveLists = new MoveList[Math.max(depth, 0) + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    /**
+     * Runs divide and prints one line per root move followed by the total,
+     * elapsed time and nodes per second. Returns the total node count.
+     */
+    public static long run(ChessGame game, int depth, PrintStream out) {
+        long start = System.nanoTime();
+        Map<ChessMove, Long> counts = divide(game, depth);
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (Map.Entry<ChessMove, Long> entry : counts.entrySet()) {
+            out.println(entry.getKey().toUci() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        double seconds = elapsed / 1e9;
+        out.println();
+        out.println("Nodes searched: " + total);
+        out.printf("Time: %.3f s, %.0f nodes/s%n", seconds, seconds > 0 ? total / seconds : 0.0);
+        return total;
+    }
+
+    /**
+     * Usage: Perft [depth] [fen]. Runs divide from the given position, or
+     * the starting position when no FEN is given.
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        ChessGame game = args.length > 1
+                ? ChessGame.fromFen(String.join(" ", Arrays.copyOfRange(args, 1, args.length)))
+                : new ChessGame();
+        run(game, depth, System.out);
+    }
+}
@@ -0,0 +1,132 @@
+package chess;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size binary encoding of a game position, for bulk storage and the wire.
+ * <br>
+ * Every position takes exactly {@link #SIZE} bytes:
+ * <pre>
+ *   0-7    occupancy bitboard, bit n set when square n (a1 = 0) holds a piece
+ *   8-23   one 4-bit piece code per occupied square, in square order, two per
+ *          byte with the lower square in the high nibble; code = color * 6 + type
+ *   24     bit 0 black to move, bits 1-4 castling rights
+ *   25     en passant target square + 1, or 0 for none
+ *   26-27  halfmove clock
+ *   28-29  fullmove number
+ * </pre>
+ * A board can hold at most 32 pieces to fit. Move history is not part of the
+ * position, so a decoded game cannot undo moves or see earlier repetitions.
+ * Encoding and decoding read and write the buffer in place at its position,
+ * so many positions can be packed back to back into one buffer or file.
+ */
+public final class PositionCodec {
+
+    public static final int SIZE = 30;
+
+    private static final int MAX_PIECES = 32;
+
+    // Piece for each 4-bit code
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            PIECES[type.ordinal()] = ChessPiece.of(ChessGame.TeamColor.WHITE, type);
+            PIECES[6 + type.ordinal()] = ChessPiece.of(ChessGame.TeamColor.BLACK, type);
+        }
+    }
+
+    private PositionCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[SIZE];
+        encode(game, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    public static ChessGame decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Writes the game's position at the buffer's position and advances it by SIZE bytes
+     *
+     * @throws IllegalArgumentException if the board has more than 32 pieces or a clock does not fit in 16 bits
+     */
+    public static void encode(ChessGame game, ByteBuffer buffer) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupied();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Cannot encode a board with more than " + MAX_PIECES + " pieces");
+        }
+        if (game.getHalfmoveClock() > 0xFFFF || game.getFullmoveNumber() > 0xFFFF) {
+            throw new IllegalArgumentException("Move counters do not fit in 16 bits");
+        }
+
+        buffer.putLong(occupied);
+        long nibbles0 = 0L;
+        long nibbles1 = 0L;
+        int index = 0;
+        for (long pieces = occupied; pieces != 0; pieces &= pieces - 1, index++) {
+            long code = code(board.getPiece(Long.numberOfTrailingZeros(pieces)));
+            if (index < 16) {
+                nibbles0 |= code << (60 - 4 * index);
+            } else {
+                nibbles1 |= code << (60 - 4 * (index - 16));
+            }
+        }
+        buffer.putLong(nibbles0);
+        buffer.putLong(nibbles1);
+
+        int flags = (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0) | (game.castlingRights() << 1);
+        buffer.put((byte) flags);
+        buffer.put((byte) (game.enPassantSquare() + 1));
+        buffer.putShort((short) game.getHalfmoveClock());
+        buffer.putShort((short) game.getFullmoveNumber());
+    }
+
+    /**
+     * Reads a position written by {@link #encode(ChessGame, ByteBuffer)} at the
+     * buffer's position and advances it by SIZE bytes
+     *
+     * @throws IllegalArgumentException if the bytes do not describe a valid position
+     * @throws BufferUnderflowException if fewer than SIZE bytes remain
+     */
+    public static ChessGame decode(ByteBuffer buffer) {
+        long occupied = buffer.getLong();
+        long nibbles0 = buffer.getLong();
+        long nibbles1 = buffer.getLong();
+        int flags = buffer.get() & 0xFF;
+        int enPassant = buffer.get() & 0xFF;
+        int halfmoveClock = buffer.getShort() & 0xFFFF;
+        int fullmoveNumber = buffer.getShort() & 0xFFFF;
+
+        if (Long.bitCount(occupied) > MAX_PIECES || flags > 0x1F || enPassant > 64) {
+            throw new IllegalArgumentException("Not an encoded position");
+        }
+
+        ChessBoard board = new ChessBoard();
+        int index = 0;
+        for (long pieces = occupied; pieces != 0; pieces &= pieces - 1, index++) {
+            long nibbles = index < 16 ? nibbles0 : nibbles1;
+            int code = (int) (nibbles >>> (60 - 4 * (index & 15))) & 0xF;
+            if (code >= PIECES.length) {
+                throw new IllegalArgumentException("Bad piece code " + code);
+            }
+            board.addPiece(Bitboards.position(Long.numberOfTrailingZeros(pieces)), PIECES[code]);
+        }
+
+        ChessGame game = new ChessGame(board, (flags & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setCastlingRights(flags >>> 1);
+        game.setEnPassantTarget(enPassant != 0 ? Bitboards.position(enPassant - 1) : null);
+        game.setHalfmoveClock(halfmoveClock);
+        game.setFullmoveNumber(fullmoveNumber);
+        return game;
+    }
+
+    private static int code(ChessPiece piece) {
+        return Bitboards.colorIndex(piece.getTeamColor()) * 6 + piece.getPieceType().ordinal();
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+/**
+ * TinyLFU admission in front of an LRU order.
+ * <br>
+ * Every lookup, hit or miss, counts towards a key's frequency in a
+ * count-min sketch: four rows of small saturating counters, each key
+ * hashed to one counter per row, with the smallest of the four taken as its
+ * estimate. When the cache is full a new position only replaces the least
+ * recently used one if it has been asked for more often, so a burst of
+ * one-off positions cannot flush the openings every game passes through.
+ * Counters are halved after every ten lookups per cache entry, so the
+ * estimates follow what is popular now rather than what was popular once.
+ */
+final class TinyLfuPolicy implements EvictionPolicy {
+
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    // Odd multipliers giving each row its own hash of the key
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final LruPolicy lru;
+    private final byte[][] counts;
+    private final int mask;
+    private final int sampleSize;
+    private int samples;
+
+    TinyLfuPolicy(int capacity) {
+        this.lru = new LruPolicy(capacity);
+        int width = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+        this.counts = new byte[ROWS][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(16, capacity);
+    }
+
+    @Override
+    public void recordAccess(long key) {
+        lru.recordAccess(key);
+        for (int row = 0; row < ROWS; row++) {
+            int index = index(key, row);
+            if (counts[row][index] < MAX_COUNT) {
+                counts[row][index]++;
+            }
+        }
+        if (++samples == sampleSize) {
+            age();
+        }
+    }
+
+    @Override
+    public void recordInsert(long key) {
+        lru.recordInsert(key);
+    }
+
+    @Override
+    public long evict(long candidate) {
+        long victim = lru.leastRecent(false);
+        if (frequency(candidate) <= frequency(victim)) {
+            return candidate;
+        }
+        return lru.leastRecent(true);
+    }
+
+    int frequency(long key) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counts[row][index(key, row)]);
+        }
+        return frequency;
+    }
+
+    private int index(long key, int row) {
+        return (int) ((key * SEEDS[row]) >>> 40) & mask;
+    }
+
+    private void age() {
+        samples = 0;
+        for (byte[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing.
+ * <br>
+ * A position's key is the XOR of one key per (piece, square) pair on the
+ * board, plus keys for the side to move, the castling rights and the en
+ * passant file. Moving a piece only XORs out its old square and XORs in the
+ * new one, so the key is kept up to date as the board changes instead of
+ * being recomputed. The generator is seeded so keys are the same on every
+ * run and can be stored.
+ */
+final class Zobrist {
+
+    // Indexed by board bitboard index (color * 6 + type ordinal), then square
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0DE_2025L);
+        for (long[] keys : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        // No rights must hash to nothing so boards with no castling need no special case
+        for (int rights = 1; rights < CASTLING_KEYS.length; rights++) {
+            CASTLING_KEYS[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT_KEYS.length; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(int bitboardIndex, int square) {
+        return PIECE_KEYS[bitboardIndex][square];
+    }
+
+    /**
+     * Key for a set of castling rights, a bit mask of the ChessGame castling constants
+     */
+    static long castling(int rights) {
+        return CASTLING_KEYS[rights];
+    }
+
+    static long enPassantFile(int column) {
+        return EN_PASSANT_KEYS[column - 1];
+    }
+
+    static long blackToMove() {
+        return BLACK_TO_MOVE_KEY;
+    }
+}
@@ -0,0 +1,112 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Static evaluation in centipawns from the side to move's point of view.
+ * <br>
+ * Material and piece-square terms come from the running totals the board
+ * keeps as pieces move, so they cost nothing here. Pawn structure (doubled,
+ * isolated and passed pawns) depends only on where the pawns are, which
+ * changes far less often than anything else, so it is cached by the board's
+ * pawn key. The middlegame and endgame totals are blended by the game
+ * phase: all middlegame with every piece on the board, all endgame with
+ * only kings and pawns.
+ * <br>
+ * Each search thread has its own Evaluation, since the pawn cache is not
+ * thread safe.
+ */
+final class Evaluation {
+
+    // Indexed by PieceType ordinal; the king is never traded, so it counts for nothing
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private static final int MAX_PHASE = 24;
+    private static final int PAWN_CACHE_SIZE = 1 << 14;
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    // Passed pawn bonus by row counted from the pawn's own side
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 90, 130, 0};
+
+    // Squares where an enemy pawn could stop a pawn of the color on the square from queening, by color index
+    private static final long[][] PASSED_MASKS = new long[2][64];
+    private static final long[] ADJACENT_FILES = new long[8];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            long files = Bitboards.FILE_A << file;
+            ADJACENT_FILES[file] = (file > 0 ? files >>> 1 : 0L) | (file < 7 ? files << 1 : 0L);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            long span = ADJACENT_FILES[file] | (Bitboards.FILE_A << file);
+            int row = square >>> 3;
+            // Rows strictly ahead of the square for white, strictly behind it for black
+            long ahead = row < 7 ? -1L << (8 * (row + 1)) : 0L;
+            long behind = row > 0 ? -1L >>> (8 * (8 - row)) : 0L;
+            PASSED_MASKS[0][square] = span & ahead;
+            PASSED_MASKS[1][square] = span & behind;
+        }
+    }
+
+    private final long[] pawnKeys = new long[PAWN_CACHE_SIZE];
+    private final int[] pawnMiddlegame = new int[PAWN_CACHE_SIZE];
+    private final int[] pawnEndgame = new int[PAWN_CACHE_SIZE];
+
+    int evaluate(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long pawnKey = board.getPawnKey();
+        // A board without pawns has key 0, which matches the empty slots and their zero scores
+        int slot = (int) pawnKey & (PAWN_CACHE_SIZE - 1);
+        if (pawnKeys[slot] != pawnKey) {
+            evaluatePawns(board, slot);
+            pawnKeys[slot] = pawnKey;
+        }
+
+        int middlegame = board.getMiddlegameScore() + pawnMiddlegame[slot];
+        int endgame = board.getEndgameScore() + pawnEndgame[slot];
+        int phase = Math.min(board.getPhase(), MAX_PHASE);
+        int score = (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    private void evaluatePawns(ChessBoard board, int slot) {
+        long white = board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        int middlegame = 0;
+        int endgame = 0;
+        for (int color = 0; color < 2; color++) {
+            long own = color == 0 ? white : black;
+            long enemy = color == 0 ? black : white;
+            int sign = color == 0 ? 1 : -1;
+            for (int file = 0; file < 8; file++) {
+                int count = Long.bitCount(own & (Bitboards.FILE_A << file));
+                if (count > 1) {
+                    middlegame += sign * DOUBLED_MIDDLEGAME * (count - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (count - 1);
+                }
+            }
+            for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                if ((own & ADJACENT_FILES[square & 7]) == 0) {
+                    middlegame += sign * ISOLATED_MIDDLEGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                }
+                if ((enemy & PASSED_MASKS[color][square]) == 0) {
+                    int row = color == 0 ? square >>> 3 : 7 - (square >>> 3);
+                    middlegame += sign * PASSED_MIDDLEGAME[row];
+                    endgame += sign * PASSED_ENDGAME[row];
+                }
+            }
+        }
+        pawnMiddlegame[slot] = middlegame;
+        pawnEndgame[slot] = endgame;
+    }
+}
@@ -0,0 +1,147 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * Hands out the moves of one node best-first, in stages: the hash move,
+ * then winning and even captures and queen promotions by MVV-LVA (most
+ * valuable victim, then least valuable attacker), then the ply's two killer
+ * moves, then the remaining quiet moves by history score, then captures that
+ * lose material by static exchange, and underpromotions last. Quiescence
+ * nodes get only the winning and even captures and queen promotions.
+ * <br>
+ * The generator produces every legal move at once, so the stages are score
+ * bands over the node's MoveList rather than separate generation passes.
+ * Each call to {@link #next()} selects the best remaining move and swaps it
+ * forward, so a node that cuts off after a move or two never pays for
+ * ordering the rest. Nothing is sorted and no objects are created.
+ * <br>
+ * A picker belongs to one ply of one search thread and is reused at every
+ * node on that ply.
+ */
+final class MovePicker {
+
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int CAPTURE = 1 << 28;
+    private static final int FIRST_KILLER = (1 << 27) + 1;
+    private static final int SECOND_KILLER = 1 << 27;
+    private static final int LOSING_CAPTURE = -(1 << 27);
+    private static final int UNDERPROMOTION = -(1 << 28);
+
+    private final StaticExchange exchange = new StaticExchange();
+    private MoveList moves;
+    private int[] scores = new int[256];
+    private int next;
+    // Moves to hand out: all of them, or the front of the list after a quiescence reset
+    private int size;
+
+    /**
+     * Scores the moves of a node for picking. killers holds the ply's two
+     * killer moves and history the side to move's history scores by
+     * from * 64 + to, starting at historyOffset.
+     */
+    void reset(MoveList moves, ChessBoard board, int hashMove, int[] killers, int[] history, int historyOffset) {
+        start(moves);
+        for (int i = 0; i < size; i++) {
+            int move = moves.get(i);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE;
+            } else if (Move.isPromotion(move) && Move.promotionType(move) != ChessPiece.PieceType.QUEEN) {
+                score = UNDERPROMOTION;
+            } else if (Move.isCapture(move) || Move.isPromotion(move)) {
+                score = (losesMaterial(board, move) ? LOSING_CAPTURE : CAPTURE) + mvvLva(board, move);
+            } else if (move == killers[0]) {
+                score = FIRST_KILLER;
+            } else if (move == killers[1]) {
+                score = SECOND_KILLER;
+            } else {
+                score = history[historyOffset + Move.from(move) * 64 + Move.to(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Keeps only the captures and queen promotions that do not lose material,
+     * for a quiescence node, and scores them by MVV-LVA
+     */
+    void resetCaptures(MoveList moves, ChessBoard board) {
+        start(moves);
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int move = moves.get(i);
+            boolean tactical = Move.isPromotion(move)
+                    ? Move.promotionType(move) == ChessPiece.PieceType.QUEEN : Move.isCapture(move);
+            if (tactical && !losesMaterial(board, move)) {
+                moves.set(i, moves.get(kept));
+                moves.set(kept, move);
+                scores[kept++] = mvvLva(board, move);
+            }
+        }
+        size = kept;
+    }
+
+    boolean hasNext() {
+        return next < size;
+    }
+
+    /**
+     * The best move not yet handed out
+     */
+    int next() {
+        int best = next;
+        for (int i = next + 1; i < size; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        int score = scores[best];
+        moves.set(best, moves.get(next));
+        scores[best] = scores[next];
+        moves.set(next, move);
+        scores[next] = score;
+        next++;
+        return move;
+    }
+
+    private void start(MoveList moves) {
+        this.moves = moves;
+        this.next = 0;
+        this.size = moves.size();
+        if (scores.length < size) {
+            scores = new int[size];
+        }
+    }
+
+    // Taking a piece worth at least the taker cannot lose material, so only the rest need an exchange evaluation
+    private boolean losesMaterial(ChessBoard board, int move) {
+        if (!Move.isPromotion(move) && Move.flags(move) != Move.EN_PASSANT) {
+            int victim = value(board.getPiece(Move.to(move)).getPieceType());
+            if (victim >= value(board.getPiece(Move.from(move)).getPieceType())) {
+                return false;
+            }
+        }
+        return exchange.see(board, move) < 0;
+    }
+
+    private static int value(ChessPiece.PieceType type) {
+        return Evaluation.PIECE_VALUES[type.ordinal()];
+    }
+
+    // Victim value dominates; among equal victims the cheaper attacker goes first
+    private static int mvvLva(ChessBoard board, int move) {
+        int victim = Move.flags(move) == Move.EN_PASSANT ? ChessPiece.PieceType.PAWN.ordinal()
+                : Move.isCapture(move) ? board.getPiece(Move.to(move)).getPieceType().ordinal() : -1;
+        int victimValue = victim >= 0 ? Evaluation.PIECE_VALUES[victim] : 0;
+        if (Move.isPromotion(move)) {
+            victimValue += Evaluation.PIECE_VALUES[ChessPiece.PieceType.QUEEN.ordinal()];
+        }
+        int attacker = board.getPiece(Move.from(move)).getPieceType().ordinal();
+        return victimValue * 16 - Evaluation.PIECE_VALUES[attacker] / 10;
+    }
+}
@@ -0,0 +1,184 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+import chess.PolyglotKey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * Opening book in the Polyglot .bin format, read straight from a
+ * memory-mapped file.
+ * <br>
+ * A book is a run of 16-byte big-endian entries sorted by position key:
+ * <pre>
+ *   0-7    position key, see {@link PolyglotKey}
+ *   8-9    move: to file, to row, from file, from row in 3 bits each from
+ *          the bottom, then the promotion piece (0 none, 1 knight, 2 bishop,
+ *          3 rook, 4 queen)
+ *   10-11  weight, relative to the position's other moves
+ *   12-15  learning data, unused
+ * </pre>
+ * Castling is written as the king taking its own rook. A probe binary
+ * searches the mapping for the position's first entry and reads on from
+ * there, so the book is never loaded into the heap and a probe touches only
+ * the few pages it lands on. Book moves are checked against the legal moves,
+ * generated into a list the caller passes in and can reuse, before they are
+ * returned, so a key collision cannot produce an illegal move.
+ * <br>
+ * Probes only read the mapping at absolute offsets, so one book can be
+ * shared by any number of threads.
+ */
+public final class OpeningBook {
+
+    static final int ENTRY_BYTES = 16;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final PolyglotKey keys;
+
+    private OpeningBook(ByteBuffer entries, PolyglotKey keys) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+        this.keys = keys;
+    }
+
+    /**
+     * Maps a book file. The file is closed again straight away; the mapping
+     * stays valid until the book is garbage collected.
+     *
+     * @throws IllegalArgumentException if the file is not a whole number of entries or is over 2 GB
+     */
+    public static OpeningBook open(Path path, PolyglotKey keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Not a Polyglot book: " + path + " is " + length + " bytes");
+            }
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), keys);
+        }
+    }
+
+    /**
+     * Number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The book's highest-weighted legal move for the position, or null if
+     * the position is not in the book
+     *
+     * @param legal scratch list the legal moves are generated into
+     */
+    public ChessMove bestMove(ChessGame game, MoveList legal) {
+        long key = keys.key(game);
+        game.legalMoves(legal);
+        int best = Move.NONE;
+        int bestWeight = -1;
+        for (int entry = firstEntry(key); entry < size && keyAt(entry) == key; entry++) {
+            int move = decode(game, legal, moveAt(entry));
+            if (move != Move.NONE && weightAt(entry) > bestWeight) {
+                best = move;
+                bestWeight = weightAt(entry);
+            }
+        }
+        return best != Move.NONE ? Move.toChessMove(best) : null;
+    }
+
+    /**
+     * A legal book move for the position chosen at random in proportion to
+     * the weights, so a bot does not play the same opening every game; null
+     * if the position is not in the book or all its moves weigh nothing
+     *
+     * @param legal scratch list the legal moves are generated into
+     */
+    public ChessMove pickMove(ChessGame game, MoveList legal, RandomGenerator random) {
+        long key = keys.key(game);
+        game.legalMoves(legal);
+        int first = firstEntry(key);
+        int total = 0;
+        for (int entry = first; entry < size && keyAt(entry) == key; entry++) {
+            if (decode(game, legal, moveAt(entry)) != Move.NONE) {
+                total += weightAt(entry);
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        int target = random.nextInt(total);
+        for (int entry = first; ; entry++) {
+            int move = decode(game, legal, moveAt(entry));
+            if (move != Move.NONE) {
+                target -= weightAt(entry);
+                if (target < 0) {
+                    return Move.toChessMove(move);
+                }
+            }
+        }
+    }
+
+    // Index of the first entry with the key, or of the first one after it if there is none; keys compare unsigned
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int entry) {
+        return entries.getLong(entry * ENTRY_BYTES);
+    }
+
+    private int moveAt(int entry) {
+        return Short.toUnsignedInt(entries.getShort(entry * ENTRY_BYTES + 8));
+    }
+
+    private int weightAt(int entry) {
+        return Short.toUnsignedInt(entries.getShort(entry * ENTRY_BYTES + 10));
+    }
+
+    // The legal move a book move stands for, or Move.NONE
+    private static int decode(ChessGame game, MoveList legal, int bookMove) {
+        int to = Bitboards.square(((bookMove >>> 3) & 7) + 1, (bookMove & 7) + 1);
+        int from = Bitboards.square(((bookMove >>> 9) & 7) + 1, ((bookMove >>> 6) & 7) + 1);
+        int promotion = (bookMove >>> 12) & 7;
+        if (promotion >= PROMOTIONS.length) {
+            return Move.NONE;
+        }
+        ChessPiece piece = game.getBoard().getPiece(from);
+        ChessPiece target = game.getBoard().getPiece(to);
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && target != null
+                && target.getPieceType() == ChessPiece.PieceType.ROOK && target.getTeamColor() == piece.getTeamColor()) {
+            // King takes own rook: the king lands two files over, towards the rook
+            to = from + (to > from ? 2 : -2);
+        }
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.from(move) == from && Move.to(move) == to && Move.promotionType(move) == PROMOTIONS[promotion]) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+}
@@ -0,0 +1,310 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Negamax alpha-beta search with iterative deepening.
+ * <br>
+ * The search plays moves on its own copy of the game with doMove/undoMove,
+ * so nothing is copied or allocated per node: each ply has a reused move
+ * list and the principal variation lives in a fixed triangular table. Each
+ * iteration searches one ply deeper than the last and tries the previous
+ * iteration's principal variation first, which is what makes the cutoffs
+ * and therefore the deeper iterations cheap. The rest of each node's moves
+ * come from a {@link MovePicker}, best candidates first. At the horizon a
+ * quiescence search plays out the captures worth making before the
+ * position is evaluated. Endings covered by the {@link chess.Bitbase} set
+ * on {@link ChessGame} are scored from it without searching further.
+ * <br>
+ * With an {@link OpeningBook} set, a position found in the book is answered
+ * with the book's best move straight away, without searching at all.
+ * <br>
+ * Every node's result goes into a {@link TranspositionTable}. A position
+ * met again, through a transposition or in the next iteration, returns the
+ * stored score when it was searched deep enough, and otherwise tries the
+ * stored best move first.
+ * <br>
+ * With more than one thread the search is Lazy SMP: helper threads search
+ * the same position alongside the main one, half of them starting a ply
+ * deeper, and share nothing but the table. Their results fill the table
+ * ahead of the main thread, which gets through its iterations sooner, and
+ * the result is always the main thread's. The helper threads are started by
+ * the first search and wait between searches, so short searches do not pay
+ * for starting threads; {@link #close()} ends them. With one thread the search is
+ * deterministic: the same position, limits and table contents give the
+ * same result, which is what the tests rely on.
+ * <br>
+ * Limits are checked as the search runs. An iteration cut short by a limit
+ * or by {@link #stop()} is thrown away and the last completed one is
+ * returned. With helpers the node limit covers all threads and may be
+ * overshot by about a thousand nodes per thread. A Search can be reused for
+ * any number of searches, one at a time.
+ */
+public final class Search implements AutoCloseable {
+
+    public static final int MAX_PLY = 128;
+    public static final int DEFAULT_TABLE_MB = 16;
+    public static final int MATE = 31_000;
+    static final int INFINITY = 32_000;
+    // Base score of a won ending from the bitbase, below every mate score
+    static final int KNOWN_WIN = 20_000;
+
+    private final TranspositionTable table;
+    private final SearchWorker[] workers;
+    // Legal moves of the root position for book probes
+    private final MoveList bookMoves = new MoveList();
+
+    private volatile OpeningBook book;
+
+    // Helper threads, started by the first search; they wait for the search count to go up, then search
+    private Thread[] helpers;
+    private final ReentrantLock helperLock = new ReentrantLock();
+    private final Condition searchStarted = helperLock.newCondition();
+    private final Condition helpersFinished = helperLock.newCondition();
+    // Guarded by helperLock
+    private long searchCount;
+    private int helpersRunning;
+    private boolean closed;
+    // First exception a helper threw during the current search; the helper itself carries on
+    private RuntimeException helperFailure;
+
+    private long maxNodes;
+    private long startNanos;
+    private long maxNanos;
+    private volatile boolean stopRequested;
+
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * A single-threaded search using the given table, which keeps what it
+     * learned between searches
+     */
+    public Search(TranspositionTable table) {
+        this(table, 1);
+    }
+
+    /**
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public Search(TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+        this.table = table;
+        this.workers = new SearchWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new SearchWorker(this, i == 0);
+        }
+    }
+
+    /**
+     * Searches the position for the side to move. The game itself is not
+     * touched; each thread works on a copy.
+     *
+     * @throws IllegalStateException if the search has been closed or a helper
+     *                               thread failed during it
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        startNanos = System.nanoTime();
+        OpeningBook book = this.book;
+        if (book != null) {
+            ChessMove bookMove = book.bestMove(position, bookMoves);
+            if (bookMove != null) {
+                return new SearchResult(bookMove, 0, 0, 0, (System.nanoTime() - startNanos) / 1_000_000L,
+                        List.of(bookMove), workers.length);
+            }
+        }
+        maxNodes = limits.getMaxNodes();
+        maxNanos = limits.getMaxMillis() > Long.MAX_VALUE / 1_000_000L ? Long.MAX_VALUE
+                : limits.getMaxMillis() * 1_000_000L;
+        stopRequested = false;
+        table.newSearch();
+
+        for (int i = 1; i < workers.length; i++) {
+            workers[i].prepare(position, maxNodes);
+        }
+        startHelpers();
+
+        SearchWorker main = workers[0];
+        RuntimeException failure;
+        try {
+            main.prepare(position, maxNodes);
+            main.iterate(1, limits.getMaxDepth());
+        } finally {
+            // Even if the main thread failed, so the helpers are idle before the next search
+            stopRequested = true;
+            failure = awaitHelpers();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("A search helper failed", failure);
+        }
+
+        int[] bestLine = main.bestLine;
+        int bestMove = bestLine.length > 0 ? bestLine[0] : main.fallbackMove();
+        List<ChessMove> line = new ArrayList<>(bestLine.length);
+        for (int move : bestLine) {
+            line.add(Move.toChessMove(move));
+        }
+        long millis = (System.nanoTime() - startNanos) / 1_000_000L;
+        return new SearchResult(bestMove != 0 ? Move.toChessMove(bestMove) : null, main.bestScore,
+                main.completedDepth, totalNodes(), millis, line, workers.length);
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can; safe to call from any thread
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Book to answer from before searching, or null to always search
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return book;
+    }
+
+    TranspositionTable table() {
+        return table;
+    }
+
+    boolean stopRequested() {
+        return stopRequested;
+    }
+
+    // Called by the main worker; ends the search for every thread once time or nodes run out
+    boolean limitReached() {
+        if (!stopRequested && (System.nanoTime() - startNanos > maxNanos || totalNodes() >= maxNodes)) {
+            stopRequested = true;
+        }
+        return stopRequested;
+    }
+
+    // True once half the time is gone, when another iteration would not finish
+    boolean pastHalfTime() {
+        return System.nanoTime() - startNanos > maxNanos / 2;
+    }
+
+    private long totalNodes() {
+        long nodes = 0;
+        for (SearchWorker worker : workers) {
+            nodes += worker.getNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * Ends the helper threads once they are idle; the search cannot be used
+     * again afterwards
+     */
+    @Override
+    public void close() {
+        helperLock.lock();
+        try {
+            closed = true;
+            searchStarted.signalAll();
+        } finally {
+            helperLock.unlock();
+        }
+    }
+
+    Thread[] helperThreads() {
+        return helpers;
+    }
+
+    private void startHelpers() {
+        helperLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The search has been closed");
+            }
+            if (helpers == null) {
+                helpers = new Thread[workers.length - 1];
+            }
+            // Started on the first search, and again if an Error ended a helper
+            for (int i = 1; i < workers.length; i++) {
+                if (helpers[i - 1] == null || !helpers[i - 1].isAlive()) {
+                    SearchWorker helper = workers[i];
+                    int startDepth = 1 + (i & 1);
+                    helpers[i - 1] = new Thread(() -> runHelper(helper, startDepth), "search-helper-" + i);
+                    helpers[i - 1].setDaemon(true);
+                    helpers[i - 1].start();
+                }
+            }
+            searchCount++;
+            helpersRunning = helpers.length;
+            helperFailure = null;
+            searchStarted.signalAll();
+        } finally {
+            helperLock.unlock();
+        }
+    }
+
+    // Waits for every helper to finish the search, returning the first exception one threw
+    private RuntimeException awaitHelpers() {
+        helperLock.lock();
+        try {
+            while (helpersRunning > 0) {
+                helpersFinished.awaitUninterruptibly();
+            }
+            return helperFailure;
+        } finally {
+            helperLock.unlock();
+        }
+    }
+
+    // A helper thread's life: one run of its worker per search until the search is closed
+    private void runHelper(SearchWorker helper, int startDepth) {
+        long searched = 0;
+        while (true) {
+            helperLock.lock();
+            try {
+                while (searchCount == searched && !closed) {
+                    searchStarted.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                searched = searchCount;
+            } finally {
+                helperLock.unlock();
+            }
+            RuntimeException failure = null;
+            try {
+                helper.iterate(startDepth, MAX_PLY);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                helperLock.lock();
+                try {
+                    if (failure != null && helperFailure == null) {
+                        helperFailure = failure;
+                    }
+                    if (--helpersRunning == 0) {
+                        helpersFinished.signal();
+                    }
+                } finally {
+                    helperLock.unlock();
+                }
+            }
+        }
+    }
+}
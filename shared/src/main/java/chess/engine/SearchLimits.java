@@ -0,0 +1,49 @@
+package chess.engine;
+
+/**
+ * How far a search may go: a depth in plies, a node count and a time budget.
+ * The search stops at whichever is reached first and returns the deepest
+ * iteration it finished.
+ */
+public final class SearchLimits {
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxMillis;
+
+    /**
+     * @throws IllegalArgumentException if any limit is not positive
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxMillis) {
+        if (maxDepth < 1 || maxNodes < 1 || maxMillis < 1) {
+            throw new IllegalArgumentException("Search limits must be positive");
+        }
+        this.maxDepth = Math.min(maxDepth, Search.MAX_PLY);
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(Search.MAX_PLY, maxNodes, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits millis(long maxMillis) {
+        return new SearchLimits(Search.MAX_PLY, Long.MAX_VALUE, maxMillis);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+}
@@ -0,0 +1,90 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * Outcome of a search: the move to play, its score and the line the engine
+ * expects, along with how much work it took.
+ */
+public final class SearchResult {
+
+    private final ChessMove bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+    private final List<ChessMove> principalVariation;
+    private final int threads;
+
+    SearchResult(ChessMove bestMove, int score, int depth, long nodes, long millis,
+                 List<ChessMove> principalVariation, int threads) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.principalVariation = List.copyOf(principalVariation);
+        this.threads = threads;
+    }
+
+    /**
+     * The move to play, or null if the side to move has none
+     */
+    public ChessMove getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Score in centipawns for the side to move. Mates are scored just below
+     * ±{@link Search#MATE}, closer to it the sooner they come.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * Deepest iteration the search completed, in plies; 0 for a move from
+     * the opening book
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Nodes searched by all threads together
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getNodesPerSecond() {
+        return millis > 0 ? nodes * 1000 / millis : nodes * 1000;
+    }
+
+    /**
+     * The line both sides are expected to play, starting with the best move
+     */
+    public List<ChessMove> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + " score " + score + " nodes " + nodes + " nps " + getNodesPerSecond()
+                + " threads " + threads + " time " + millis + "ms pv " + principalVariation;
+    }
+}
@@ -0,0 +1,352 @@
+package chess.engine;
+
+import chess.Bitbase;
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.Arrays;
+
+/**
+ * One thread's share of a {@link Search}: its own copy of the game, move
+ * lists and principal variation table, running iterative deepening
+ * against the shared transposition table.
+ * <br>
+ * The main worker's iterations are the search's result and it enforces the
+ * limits for everyone. Helpers search the same position to no depth in
+ * particular; what they find reaches the main worker through the table.
+ */
+final class SearchWorker {
+
+    // Limits are checked once per this many nodes, as reading the clock costs more than a node
+    private static final int CHECK_MASK = 1023;
+    // History scores are halved once one passes this, keeping them below the killer band
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final Search search;
+    private final boolean main;
+    private final MoveList[] moveLists = new MoveList[Search.MAX_PLY + 1];
+    // pv[ply] holds the best line found from ply onwards, in pv[ply][ply..pvLength[ply]-1]
+    private final int[][] pv = new int[Search.MAX_PLY + 1][Search.MAX_PLY + 1];
+    private final int[] pvLength = new int[Search.MAX_PLY + 1];
+    private final int[] previousPv = new int[Search.MAX_PLY + 1];
+    private int previousPvLength;
+    private final Evaluation evaluation = new Evaluation();
+    private final MovePicker[] pickers = new MovePicker[Search.MAX_PLY + 1];
+    // Two quiet moves per ply that recently caused a cutoff there
+    private final int[][] killers = new int[Search.MAX_PLY + 1][2];
+    // Cutoff credit for quiet moves by color, from and to square: color * 4096 + from * 64 + to
+    private final int[] history = new int[2 * 64 * 64];
+
+    private ChessGame game;
+    private long nodes;
+    private long maxNodes;
+    private boolean stopped;
+    // Node count as of the last check, for the main worker to total up
+    private volatile long reportedNodes;
+
+    // Deepest completed iteration
+    int[] bestLine = new int[0];
+    int bestScore;
+    int completedDepth;
+
+    SearchWorker(Search search, boolean main) {
+        this.search = search;
+        this.main = main;
+        for (int ply = 0; ply <= Search.MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    void prepare(ChessGame position, long maxNodes) {
+        this.game = new ChessGame(position);
+        this.maxNodes = maxNodes;
+        this.nodes = 0;
+        this.reportedNodes = 0;
+        this.stopped = false;
+        this.previousPvLength = 0;
+        this.bestLine = new int[0];
+        this.bestScore = 0;
+        this.completedDepth = 0;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Deepens from startDepth until maxDepth, a limit or a stop. The main
+     * worker also stops once a mate is found or the next iteration would not
+     * finish in the time left; helpers keep going until told to stop.
+     */
+    void iterate(int startDepth, int maxDepth) {
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            int score = negamax(depth, 0, -Search.INFINITY, Search.INFINITY);
+            if (stopped) {
+                break;
+            }
+            bestScore = score;
+            completedDepth = depth;
+            bestLine = extendFromTable(Arrays.copyOf(pv[0], pvLength[0]), depth);
+            System.arraycopy(bestLine, 0, previousPv, 0, bestLine.length);
+            previousPvLength = bestLine.length;
+
+            if (main && (Math.abs(score) >= Search.MATE - Search.MAX_PLY || search.pastHalfTime())) {
+                break;
+            }
+        }
+        reportedNodes = nodes;
+    }
+
+    long getNodes() {
+        return reportedNodes;
+    }
+
+    // Any legal move, for when the limits run out before the first iteration completes
+    int fallbackMove() {
+        MoveList moves = moveLists[0];
+        game.legalMoves(moves);
+        return moves.isEmpty() ? 0 : moves.get(0);
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (ply > 0 && (game.isRepetition() || game.isFiftyMoveRule())) {
+            return 0;
+        }
+        if (depth == 0 || ply == Search.MAX_PLY) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (++nodes >= maxNodes || ((nodes & CHECK_MASK) == 0 && checkLimits())) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        TranspositionTable table = search.table();
+        long key = game.positionKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != TranspositionTable.NONE) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return game.isInCheck(game.getTeamTurn()) ? -Search.MATE + ply : 0;
+        }
+        if (ply > 0) {
+            Bitbase.Result known = game.getKnownResult();
+            if (known != null) {
+                return knownScore(known);
+            }
+        }
+        if (hashMove == 0 && ply < previousPvLength) {
+            hashMove = previousPv[ply];
+        }
+        int historyOffset = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 0 : 64 * 64;
+        MovePicker picker = pickers[ply];
+        picker.reset(moves, game.getBoard(), hashMove, killers[ply], history, historyOffset);
+
+        int originalAlpha = alpha;
+        int bestMove = 0;
+        int best = -Search.INFINITY;
+        while (picker.hasNext()) {
+            int move = picker.next();
+            game.doMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            recordQuietCutoff(ply, move, depth, historyOffset);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Plays out captures and queen promotions past the horizon until the
+     * position is quiet, so a score never rests on a piece left hanging.
+     * The side to move may stand pat on the static evaluation instead of
+     * capturing, except in check, where every evasion is searched. Captures
+     * that lose material by static exchange are skipped, which is what keeps
+     * this small.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (++nodes >= maxNodes || ((nodes & CHECK_MASK) == 0 && checkLimits())) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (ply == Search.MAX_PLY) {
+            return inCheck ? 0 : evaluation.evaluate(game);
+        }
+
+        int best = -Search.INFINITY;
+        // Only checks can chain quiet moves here, and only they can repeat a position
+        if (inCheck && game.isRepetition()) {
+            return 0;
+        }
+        if (!inCheck) {
+            best = evaluation.evaluate(game);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -Search.MATE + ply : 0;
+        }
+        MovePicker picker = pickers[ply];
+        if (inCheck) {
+            int historyOffset = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 0 : 64 * 64;
+            picker.reset(moves, game.getBoard(), 0, killers[ply], history, historyOffset);
+        } else {
+            picker.resetCaptures(moves, game.getBoard());
+        }
+
+        while (picker.hasNext()) {
+            int move = picker.next();
+            game.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Score of a position the bitbase has decided. Wins rank below mates and
+     * keep the evaluation on top, so the search heads for won positions
+     * that are further along, such as the lone king nearer a corner.
+     */
+    private int knownScore(Bitbase.Result result) {
+        return switch (result) {
+            case WIN -> Search.KNOWN_WIN + evaluation.evaluate(game);
+            case LOSS -> -Search.KNOWN_WIN + evaluation.evaluate(game);
+            case DRAW -> 0;
+        };
+    }
+
+    private void recordQuietCutoff(int ply, int move, int depth, int historyOffset) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int index = historyOffset + Move.from(move) * 64 + Move.to(move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    private boolean checkLimits() {
+        reportedNodes = nodes;
+        return main ? search.limitReached() : search.stopRequested();
+    }
+
+    // Mate scores are stored relative to the node, not the root, so they stay right wherever the position recurs
+    private static int toTable(int score, int ply) {
+        if (score >= Search.MATE - Search.MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -Search.MATE + Search.MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= Search.MATE - Search.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -Search.MATE + Search.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Table cutoffs end the principal variation early; carry it on with the
+     * table's best moves, as long as they are legal and lead somewhere new
+     */
+    private int[] extendFromTable(int[] line, int depth) {
+        TranspositionTable table = search.table();
+        int length = 0;
+        for (; length < line.length; length++) {
+            game.doMove(line[length]);
+        }
+        int[] extended = Arrays.copyOf(line, Math.max(line.length, depth));
+        MoveList moves = moveLists[0];
+        while (length < depth && !game.isRepetition()) {
+            long entry = table.probe(game.positionKey());
+            game.legalMoves(moves);
+            if (entry == TranspositionTable.NONE || !moves.contains(TranspositionTable.move(entry))) {
+                break;
+            }
+            extended[length++] = TranspositionTable.move(entry);
+            game.doMove(TranspositionTable.move(entry));
+        }
+        for (int i = 0; i < length; i++) {
+            game.undoMove();
+        }
+        return Arrays.copyOf(extended, length);
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, childLength - (ply + 1));
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+}
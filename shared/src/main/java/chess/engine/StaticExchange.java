@@ -0,0 +1,176 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * Static exchange evaluation: the material a move wins or loses once both
+ * sides have made every capture on its target square that pays for them,
+ * always recapturing with the least valuable piece.
+ * <br>
+ * Attackers come from {@link ChessBoard#attackersOf(int, ChessGame.TeamColor, long)}
+ * with each capturer lifted out of the occupancy as it is used, so a rook
+ * or queen lined up behind it joins the exchange. Pins and checks elsewhere
+ * on the board are not considered, which is what keeps it cheap enough to
+ * run on every capture in a search.
+ * <br>
+ * The static methods are for callers outside the search, such as flagging
+ * blunders in live games. Search threads keep an instance each so the swap
+ * list is not reallocated per call.
+ */
+public final class StaticExchange {
+
+    /**
+     * Material loss, in centipawns, beyond which {@link #isBlunder} flags a move
+     */
+    public static final int BLUNDER_MARGIN = 200;
+
+    // Capturers in the order they are brought in
+    private static final ChessPiece.PieceType[] CAPTURE_ORDER = {
+            ChessPiece.PieceType.PAWN, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING
+    };
+
+    // Gains by capture count; a square can see at most 32 captures
+    private final int[] gain = new int[34];
+
+    /**
+     * Material the side to move wins with the move, negative if it loses material
+     *
+     * @throws IllegalArgumentException if the move is not legal in the game
+     */
+    public static int see(ChessGame game, ChessMove move) {
+        return new StaticExchange().see(game.getBoard(), encode(game, move));
+    }
+
+    /**
+     * True if the move loses at least {@link #BLUNDER_MARGIN} of material
+     * compared with not moving at all: what it captures, less the best
+     * capture it allows the opponent, less what the opponent could already
+     * win. Only material is counted, so mates and positional errors are not
+     * flagged.
+     *
+     * @throws IllegalArgumentException if the move is not legal in the game
+     */
+    public static boolean isBlunder(ChessGame game, ChessMove move) {
+        StaticExchange exchange = new StaticExchange();
+        ChessGame copy = new ChessGame(game);
+        int encoded = encode(copy, move);
+        MoveList replies = new MoveList();
+
+        // What the opponent could win if it were their move now
+        ChessGame.TeamColor us = copy.getTeamTurn();
+        copy.setTeamTurn(us == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        int threatBefore = exchange.bestCapture(copy, replies);
+        copy.setTeamTurn(us);
+
+        int won = exchange.see(copy.getBoard(), encoded);
+        copy.doMove(encoded);
+        int threatAfter = exchange.bestCapture(copy, replies);
+        return won - threatAfter + threatBefore <= -BLUNDER_MARGIN;
+    }
+
+    /**
+     * Exchange value of a legal move in the encoding of {@link Move}.
+     * Quiet moves are valued as the loss of the moved piece if the square is
+     * attacked and not adequately defended.
+     */
+    int see(ChessBoard board, int move) {
+        if (Move.isCastle(move)) {
+            return 0;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece mover = board.getPiece(from);
+        ChessGame.TeamColor side = mover.getTeamColor() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long occupied = board.getOccupied() & ~Bitboards.bit(from);
+
+        int captured = 0;
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            captured = value(ChessPiece.PieceType.PAWN);
+            occupied &= ~Bitboards.bit(Bitboards.square(Bitboards.row(from), Bitboards.column(to)));
+        } else if (Move.isCapture(move)) {
+            captured = value(board.getPiece(to).getPieceType());
+        }
+        int onSquare = value(mover.getPieceType());
+        ChessPiece.PieceType promotion = Move.promotionType(move);
+        if (promotion != null) {
+            captured += value(promotion) - value(ChessPiece.PieceType.PAWN);
+            onSquare = value(promotion);
+        }
+
+        int depth = 0;
+        gain[0] = captured;
+        while (true) {
+            depth++;
+            // What side would net by taking the piece on the square, if it can
+            gain[depth] = onSquare - gain[depth - 1];
+            long attackers = board.attackersOf(to, side, occupied);
+            if (attackers == 0) {
+                break;
+            }
+            ChessPiece.PieceType type = null;
+            long capturer = 0;
+            for (ChessPiece.PieceType candidate : CAPTURE_ORDER) {
+                long pieces = attackers & board.getPieces(side, candidate);
+                if (pieces != 0) {
+                    type = candidate;
+                    capturer = pieces & -pieces;
+                    break;
+                }
+            }
+            ChessGame.TeamColor other = side == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            // A king can only take last, onto a square nothing defends
+            if (type == ChessPiece.PieceType.KING && board.attackersOf(to, other, occupied & ~capturer) != 0) {
+                break;
+            }
+            occupied &= ~capturer;
+            onSquare = value(type);
+            side = other;
+        }
+        // Each side may stop capturing when carrying on would cost it; fold that back to the first move
+        while (--depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    // Best exchange value among the side to move's captures, or 0
+    private int bestCapture(ChessGame game, MoveList moves) {
+        game.legalMoves(moves);
+        int best = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Move.isCapture(move)) {
+                best = Math.max(best, see(game.getBoard(), move));
+            }
+        }
+        return best;
+    }
+
+    private static int value(ChessPiece.PieceType type) {
+        return Evaluation.PIECE_VALUES[type.ordinal()];
+    }
+
+    private static int encode(ChessGame game, ChessMove move) {
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        for (int i = 0; i < moves.size(); i++) {
+            int candidate = moves.get(i);
+            if (Move.from(candidate) == from && Move.to(candidate) == to
+                    && Move.promotionType(candidate) == move.getPromotionPiece()) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Not a legal move: " + move);
+    }
+}
@@ -0,0 +1,139 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results by Zobrist key, shared without
+ * locks by every thread searching with it.
+ * <br>
+ * Each slot is two longs: a data word packing the best move, score, depth,
+ * bound and search generation, and the position key XORed with that data.
+ * Readers recompute the key from both words and ignore the slot if it does
+ * not match, so a slot torn by two threads writing at once reads as a miss
+ * instead of as another position's result. The data word is never zero for
+ * a stored entry, so probing an empty slot is a miss as well.
+ * <br>
+ * The size is fixed in megabytes when the table is made, rounded down to a
+ * power of two slots so the index is a mask of the key.
+ */
+public final class TranspositionTable {
+
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    /**
+     * Returned by probe for a position the table does not hold
+     */
+    public static final long NONE = 0L;
+
+    private static final int BYTES_PER_SLOT = 16;
+
+    // Data word layout
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int GENERATION_SHIFT = 42;
+    private static final int GENERATION_MASK = 0xFF;
+
+    private final long[] slots;
+    private final int mask;
+    private int generation;
+
+    /**
+     * @throws IllegalArgumentException if megabytes is not between 1 and 16384
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > 16384) {
+            throw new IllegalArgumentException("Table size must be 1 to 16384 MB");
+        }
+        long slotCount = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_SLOT);
+        // Two longs per slot have to fit in one Java array
+        slotCount = Math.min(slotCount, 1L << 29);
+        this.slots = new long[(int) slotCount * 2];
+        this.mask = (int) slotCount - 1;
+    }
+
+    /**
+     * Starts a new search, so entries from earlier searches give way to new ones
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * The data word stored for the key, or NONE
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = slots[index + 1];
+        return (slots[index] ^ data) == key ? data : NONE;
+    }
+
+    /**
+     * Stores a result for the key. An entry from the current search is only
+     * replaced by an exact score or one searched at least as deep.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long old = slots[index + 1];
+        if (old != NONE && generation(old) == generation && depth(old) > depth && bound != EXACT) {
+            return;
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << SCORE_SHIFT)
+                | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+        slots[index] = key ^ data;
+        slots[index + 1] = data;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        generation = 0;
+    }
+
+    public int getSlotCount() {
+        return mask + 1;
+    }
+
+    /**
+     * Permille of a sample of slots holding an entry from the current search
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, mask + 1);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = slots[2 * i + 1];
+            if (data != NONE && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) << 1;
+    }
+}
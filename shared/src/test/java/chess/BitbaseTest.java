@@ -0,0 +1,151 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitbaseTest {
+
+    private static Bitbase bitbase;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void generate() {
+        bitbase = Bitbase.generate();
+    }
+
+    @AfterEach
+    void clearSharedBitbase() {
+        ChessGame.setBitbase(null);
+    }
+
+    private static Bitbase.Result probe(String fen) {
+        return bitbase.probe(ChessGame.fromFen(fen));
+    }
+
+    @Test
+    void kingAndQueen() {
+        assertEquals(Bitbase.Result.WIN, probe("8/8/8/4k3/8/8/8/KQ6 w - - 0 1"));
+        assertEquals(Bitbase.Result.LOSS, probe("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"));
+        // Stalemate, and a queen the king can take
+        assertEquals(Bitbase.Result.DRAW, probe("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1"));
+        assertEquals(Bitbase.Result.DRAW, probe("8/8/8/8/8/8/1q6/K6k w - - 0 1"));
+    }
+
+    @Test
+    void kingAndRook() {
+        assertEquals(Bitbase.Result.LOSS, probe("k7/8/8/8/8/8/8/KR6 b - - 0 1"));
+        assertEquals(Bitbase.Result.DRAW, probe("8/8/8/8/8/8/1k6/2R3K1 b - - 0 1"));
+        assertEquals(Bitbase.Result.WIN, probe("8/8/8/8/8/8/1k6/2R3K1 w - - 0 1"));
+    }
+
+    @Test
+    void kingAndPawn() {
+        // A rook pawn with the defending king in the corner is a draw; far away, it cannot catch the pawn
+        assertEquals(Bitbase.Result.DRAW, probe("k7/8/8/8/8/8/P7/K7 w - - 0 1"));
+        assertEquals(Bitbase.Result.WIN, probe("8/8/8/8/8/8/P7/K6k w - - 0 1"));
+        // The same positions with the colors swapped
+        assertEquals(Bitbase.Result.DRAW, probe("k7/p7/8/8/8/8/8/K7 b - - 0 1"));
+        assertEquals(Bitbase.Result.WIN, probe("k6K/p7/8/8/8/8/8/8 b - - 0 1"));
+        // King on the sixth in front of the pawn wins whoever moves
+        assertEquals(Bitbase.Result.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"));
+        assertEquals(Bitbase.Result.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+    }
+
+    @Test
+    void countsWonPositions() {
+        // Strong side to move wins every legal position with a queen or rook; a pawn wins fewer
+        assertEquals(144508, bitbase.countWins(ChessPiece.PieceType.QUEEN, false));
+        assertEquals(175168, bitbase.countWins(ChessPiece.PieceType.ROOK, false));
+        assertEquals(124960, bitbase.countWins(ChessPiece.PieceType.PAWN, false));
+        assertEquals(200896, bitbase.countWins(ChessPiece.PieceType.QUEEN, true));
+        assertEquals(201700, bitbase.countWins(ChessPiece.PieceType.ROOK, true));
+        assertEquals(97604, bitbase.countWins(ChessPiece.PieceType.PAWN, true));
+    }
+
+    @Test
+    void otherPositionsAreNotCovered() {
+        assertNull(bitbase.probe(new ChessGame()));
+        assertNull(probe("8/8/8/4k3/8/8/8/KB6 w - - 0 1"));
+        assertNull(probe("4k3/8/8/8/8/8/8/4K2R w K - 0 1"));
+    }
+
+    @Test
+    void impossiblePositionsAreNotCovered() {
+        // Pawns on the first or last rank, the side not to move in check, and adjacent kings
+        assertNull(probe("P6k/8/8/8/8/8/8/K7 w - - 0 1"));
+        assertNull(probe("k7/8/8/8/8/8/8/K6p b - - 0 1"));
+        assertNull(probe("k7/8/8/8/8/8/8/RK6 w - - 0 1"));
+        assertNull(probe("8/8/8/8/8/8/8/Kk5Q b - - 0 1"));
+    }
+
+    @Test
+    void readsBackWhatItWrites() throws IOException {
+        Path path = directory.resolve("bitbase.bin");
+        bitbase.write(path);
+        Bitbase read = Bitbase.read(path);
+        for (String fen : new String[]{"k7/8/8/8/8/8/P7/K7 w - - 0 1", "8/8/8/8/8/8/P7/K6k w - - 0 1",
+                "8/8/8/8/8/8/1k6/2R3K1 b - - 0 1", "k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"}) {
+            assertEquals(probe(fen), read.probe(ChessGame.fromFen(fen)));
+        }
+
+        Path broken = directory.resolve("broken.bin");
+        Files.write(broken, new byte[64]);
+        assertThrows(IllegalArgumentException.class, () -> Bitbase.read(broken));
+    }
+
+    @Test
+    void loadGeneratesAMissingFileOnce() throws IOException {
+        Path path = directory.resolve("bitbase.bin");
+        Bitbase loaded = Bitbase.load(path);
+        assertTrue(Files.exists(path));
+        assertEquals(bitbase.countWins(ChessPiece.PieceType.PAWN, false),
+                Bitbase.load(path).countWins(ChessPiece.PieceType.PAWN, false));
+        assertEquals(Bitbase.Result.DRAW, loaded.probe(ChessGame.fromFen("k7/8/8/8/8/8/P7/K7 w - - 0 1")));
+    }
+
+    @Test
+    void gamesAreAdjudicatedByTheSharedBitbase() throws InvalidMoveException {
+        ChessGame won = ChessGame.fromFen("8/8/8/4k3/8/8/8/KQ6 w - - 0 1");
+        assertFalse(won.adjudicate());
+        assertEquals(GameStatus.ONGOING, won.getStatus());
+
+        ChessGame.setBitbase(bitbase);
+        assertTrue(won.adjudicate());
+        assertEquals(GameStatus.ADJUDICATED, won.getStatus());
+        assertTrue(won.isGameOver());
+        assertEquals(ChessGame.TeamColor.WHITE, won.getWinner());
+        assertFalse(won.adjudicate());
+        assertThrows(InvalidMoveException.class, () -> won.makeMove(
+                new ChessMove(new ChessPosition(1, 2), new ChessPosition(2, 2), null)));
+
+        ChessGame lost = ChessGame.fromFen("k7/8/8/8/8/8/8/KQ6 b - - 0 1");
+        assertTrue(lost.adjudicate());
+        assertEquals(ChessGame.TeamColor.WHITE, lost.getWinner());
+
+        ChessGame drawn = ChessGame.fromFen("k7/8/8/8/8/8/P7/K7 w - - 0 1");
+        assertTrue(drawn.adjudicate());
+        assertTrue(drawn.isGameOver());
+        assertNull(drawn.getWinner());
+
+        assertFalse(new ChessGame().adjudicate());
+        assertFalse(new ChessGame().isGameOver());
+    }
+
+    @Test
+    void gamesProbeTheSharedBitbase() {
+        ChessGame game = ChessGame.fromFen("k7/8/8/8/8/8/P7/K7 w - - 0 1");
+        assertNull(game.getKnownResult());
+        ChessGame.setBitbase(bitbase);
+        assertEquals(Bitbase.Result.DRAW, game.getKnownResult());
+    }
+}
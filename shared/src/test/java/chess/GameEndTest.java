@@ -0,0 +1,157 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import static chess.Moves.move;
+import static chess.Moves.play;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameEndTest {
+
+    @Test
+    void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertFalse(game.isThreefoldRepetition());
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertTrue(game.isThreefoldRepetition());
+        assertTrue(game.isGameOver());
+        assertNull(game.getWinner());
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(move("e2e4")));
+
+        game.undoMove();
+        assertFalse(game.isThreefoldRepetition());
+        game.makeMove(move("f6g8"));
+    }
+
+    @Test
+    void pawnMoveBreaksRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "e2e3", "e7e6");
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        assertFalse(game.isThreefoldRepetition());
+        assertEquals(4, game.getHalfmoveClock());
+    }
+
+    @Test
+    void halfmoveClock() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "b8c6");
+        assertEquals(2, game.getHalfmoveClock());
+        play(game, "e2e4");
+        assertEquals(0, game.getHalfmoveClock());
+        play(game, "c6d4", "f3d4");
+        assertEquals(0, game.getHalfmoveClock());
+        game.undoMove();
+        assertEquals(1, game.getHalfmoveClock());
+    }
+
+    @Test
+    void fiftyAndSeventyFiveMoveRules() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | | |
+                """));
+        // Shuffle the rook and the black king back and forth; doMove skips the legality checks
+        for (int ply = 0; ply < 150; ply += 2) {
+            boolean out = ply % 4 == 0;
+            game.doMove(move(out ? "a1a2" : "a2a1"));
+            game.doMove(move(out ? "e8d8" : "d8e8"));
+            if (ply + 2 == 100) {
+                assertTrue(game.isFiftyMoveRule());
+                assertFalse(game.isSeventyFiveMoveRule());
+            }
+        }
+        assertEquals(150, game.getHalfmoveClock());
+        assertTrue(game.isSeventyFiveMoveRule());
+        assertTrue(game.isGameOver());
+    }
+
+    @Test
+    void noMovesOnceTheGameIsOver() throws InvalidMoveException {
+        // Each of these endings leaves the side to move with the legal move listed beside it
+        ChessGame repeated = play("g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1", "f6g8");
+        ChessGame seventyFive = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 150 100");
+        ChessGame resigned = play("e2e4");
+        resigned.resign(ChessGame.TeamColor.BLACK);
+
+        assertEquals(GameStatus.DRAW, repeated.getStatus());
+        assertEquals(GameStatus.DRAW, seventyFive.getStatus());
+        assertEquals(GameStatus.RESIGNED, resigned.getStatus());
+        assertGameOver(repeated, move("e2e4"));
+        assertGameOver(seventyFive, move("a1a2"));
+        assertGameOver(resigned, move("e7e5"));
+    }
+
+    private static void assertGameOver(ChessGame game, ChessMove legal) {
+        assertTrue(game.isGameOver());
+        assertTrue(game.validMoves(legal.getStartPosition()).contains(legal));
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(legal));
+        assertTrue(game.isGameOver());
+    }
+
+    @Test
+    void checkmateEndsGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertFalse(game.isGameOver());
+        play(game, "f2f3", "e7e5", "g2g4");
+        assertFalse(game.isGameOver());
+        game.makeMove(move("d8h4"));
+        assertTrue(game.isGameOver());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getWinner());
+    }
+
+    @Test
+    void statusFollowsTheGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertEquals(GameStatus.ONGOING, game.getStatus());
+        play(game, "e2e4", "f7f6", "d2d3", "g7g5");
+        assertEquals(GameStatus.ONGOING, game.getStatus());
+        play(game, "d1h5");
+        assertEquals(GameStatus.CHECKMATE, game.getStatus());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getWinner());
+        game.undoMove();
+        assertEquals(GameStatus.ONGOING, game.getStatus());
+        assertNull(game.getWinner());
+    }
+
+    @Test
+    void checkAndStalemateStatus() {
+        assertEquals(GameStatus.CHECK, ChessGame.fromFen("4k3/8/8/8/8/8/8/3KR3 b - - 0 1").getStatus());
+        ChessGame stalemate = ChessGame.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertEquals(GameStatus.STALEMATE, stalemate.getStatus());
+        assertTrue(stalemate.isInStalemate(ChessGame.TeamColor.BLACK));
+        assertTrue(stalemate.isGameOver());
+        assertNull(stalemate.getWinner());
+    }
+
+    @Test
+    void statusNoticesBoardEdits() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 b - - 0 1");
+        assertEquals(GameStatus.ONGOING, game.getStatus());
+        game.getBoard().addPiece(new ChessPosition(1, 5),
+                ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        game.getBoard().addPiece(new ChessPosition(1, 1),
+                ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        assertEquals(GameStatus.CHECK, game.getStatus());
+    }
+
+    @Test
+    void resignation() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4");
+        game.resign(ChessGame.TeamColor.BLACK);
+        assertEquals(GameStatus.RESIGNED, game.getStatus());
+        assertTrue(game.isGameOver());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getWinner());
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(move("e7e5")));
+    }
+}
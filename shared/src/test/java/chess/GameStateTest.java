@@ -0,0 +1,157 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import static chess.Moves.move;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateTest {
+
+    @Test
+    void piecesAreShared() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        assertSame(board.getPiece(new ChessPosition(2, 1)), board.getPiece(new ChessPosition(2, 8)));
+        assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN),
+                board.getPiece(new ChessPosition(8, 4)));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+    }
+
+    @Test
+    void boardCopyIsIndependent() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessBoard copy = new ChessBoard(board);
+        assertEquals(board, copy);
+
+        copy.addPiece(new ChessPosition(2, 5), null);
+        assertNotEquals(board, copy);
+        assertNotNull(board.getPiece(new ChessPosition(2, 5)));
+    }
+
+    @Test
+    void gameCopyKeepsState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2e4"));
+        game.makeMove(move("g8f6"));
+        game.makeMove(move("e1e2"));
+        ChessGame copy = new ChessGame(game);
+        assertEquals(game, copy);
+        assertEquals(game.positionKey(), copy.positionKey());
+        assertEquals(game.castlingRights(), copy.castlingRights());
+
+        // History comes along, so the copy can take moves back on its own
+        copy.undoMove();
+        assertNotEquals(game, copy);
+        assertEquals(ChessGame.TeamColor.WHITE, copy.getTeamTurn());
+    }
+
+    @Test
+    void gsonRoundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2e4"));
+        Gson gson = new Gson();
+        ChessGame restored = gson.fromJson(gson.toJson(game), ChessGame.class);
+        assertEquals(game, restored);
+        assertEquals(new ChessPosition(3, 5), restored.getEnPassantTarget());
+        assertEquals(game.legalMoves().size(), restored.legalMoves().size());
+    }
+
+    @Test
+    void evaluationTermsAreNotSerialized() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2e4"));
+        ChessBoard board = game.getBoard();
+        int middlegame = board.getMiddlegameScore();
+        Gson gson = new Gson();
+        String json = gson.toJson(game);
+        assertFalse(json.contains("middlegameScore"), json);
+
+        // Tampered terms in the JSON are ignored and rebuilt from the pieces
+        ChessBoard restored = gson.fromJson(json.replace("\"key\"", "\"middlegameScore\":900,\"key\""),
+                ChessGame.class).getBoard();
+        assertEquals(middlegame, restored.getMiddlegameScore());
+        assertEquals(board.getEndgameScore(), restored.getEndgameScore());
+        assertEquals(board.getPhase(), restored.getPhase());
+        assertEquals(board.getPawnKey(), restored.getPawnKey());
+    }
+
+    @Test
+    void capturedRookLosesCastlingRight() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |r| | | |k| | |r|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | |R|
+                """));
+        assertEquals(ChessGame.ALL_CASTLING, game.castlingRights());
+
+        game.doMove(move("a1a8"));
+        assertEquals(ChessGame.WHITE_KINGSIDE | ChessGame.BLACK_KINGSIDE, game.castlingRights());
+        game.undoMove();
+        assertEquals(ChessGame.ALL_CASTLING, game.castlingRights());
+    }
+
+    @Test
+    void kingSquaresFollowMoves() {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        ChessBoard board = game.getBoard();
+        assertEquals(Bitboards.square(1, 5), board.getKingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(Bitboards.square(8, 5), board.getKingSquare(ChessGame.TeamColor.BLACK));
+
+        game.doMove(move("e1g1"));
+        assertEquals(Bitboards.square(1, 7), board.getKingSquare(ChessGame.TeamColor.WHITE));
+        game.undoMove();
+        assertEquals(Bitboards.square(1, 5), board.getKingSquare(ChessGame.TeamColor.WHITE));
+
+        board.addPiece(new ChessPosition(8, 5), null);
+        assertEquals(-1, board.getKingSquare(ChessGame.TeamColor.BLACK));
+        assertEquals(Bitboards.square(1, 5), new ChessBoard(board).getKingSquare(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void attackersOfLooksOutwardFromTheSquare() {
+        ChessBoard board = ChessGame.fromFen("4k3/8/8/3p4/1n6/8/4R3/B3K2q w - - 0 1").getBoard();
+        int e5 = Bitboards.square(5, 5);
+        assertEquals(0L, board.attackersOf(e5, ChessGame.TeamColor.BLACK));
+
+        int c2 = Bitboards.square(2, 3);
+        assertEquals(Bitboards.bit(Bitboards.square(4, 2)), board.attackersOf(c2, ChessGame.TeamColor.BLACK));
+
+        int e4 = Bitboards.square(4, 5);
+        assertEquals(Bitboards.bit(Bitboards.square(5, 4)) | Bitboards.bit(Bitboards.square(1, 8)),
+                board.attackersOf(e4, ChessGame.TeamColor.BLACK));
+        assertEquals(Bitboards.bit(Bitboards.square(2, 5)), board.attackersOf(e4, ChessGame.TeamColor.WHITE));
+
+        // A piece lifted off the occupancy no longer attacks anything
+        long withoutRook = board.getOccupied() & ~Bitboards.bit(Bitboards.square(2, 5));
+        assertEquals(0L, board.attackersOf(e4, ChessGame.TeamColor.WHITE, withoutRook));
+        int f2 = Bitboards.square(2, 6);
+        assertEquals(Bitboards.bit(Bitboards.square(1, 5)) | Bitboards.bit(Bitboards.square(2, 5)),
+                board.attackersOf(f2, ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void betweenAndLineTables() {
+        int a1 = Bitboards.square(1, 1);
+        int d4 = Bitboards.square(4, 4);
+        int h8 = Bitboards.square(8, 8);
+        assertEquals(Bitboards.bit(Bitboards.square(2, 2)) | Bitboards.bit(Bitboards.square(3, 3)),
+                Bitboards.between(a1, d4));
+        assertEquals(Bitboards.between(a1, d4), Bitboards.between(d4, a1));
+        assertEquals(0L, Bitboards.between(a1, Bitboards.square(2, 2)));
+        assertEquals(0L, Bitboards.between(a1, Bitboards.square(2, 3)));
+
+        assertEquals(0x8040201008040201L, Bitboards.line(d4, h8));
+        assertEquals(Bitboards.ROW_1, Bitboards.line(a1, Bitboards.square(1, 5)));
+        assertEquals(0L, Bitboards.line(a1, Bitboards.square(3, 2)));
+    }
+}
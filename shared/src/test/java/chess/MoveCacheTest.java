@@ -0,0 +1,130 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveCacheTest {
+
+    private static final MoveCache.Entry ENTRY = new MoveCache.Entry(new int[0], GameStatus.ONGOING, new ChessBoard());
+
+    private final MoveCache shared = ChessGame.getMoveCache();
+
+    @AfterEach
+    void restoreSharedCache() {
+        ChessGame.setMoveCache(shared);
+    }
+
+    @Test
+    void lruEvictsLeastRecentlyUsed() {
+        MoveCache cache = MoveCache.lru(2);
+        cache.put(1L, ENTRY);
+        cache.put(2L, ENTRY);
+        assertNotNull(cache.get(1L));
+        cache.put(3L, ENTRY);
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0.75, cache.hitRate());
+    }
+
+    @Test
+    void tinyLfuKeepsPopularPositions() {
+        MoveCache cache = MoveCache.tinyLfu(2);
+        for (int i = 0; i < 5; i++) {
+            cache.get(1L);
+            cache.get(2L);
+        }
+        cache.put(1L, ENTRY);
+        cache.put(2L, ENTRY);
+
+        // Seen once, so it does not displace either popular position
+        cache.get(3L);
+        cache.put(3L, ENTRY);
+        assertNull(cache.get(3L));
+        assertEquals(0, cache.evictionCount());
+
+        // Once asked for more often than the least recent entry, it is admitted
+        for (int i = 0; i < 10; i++) {
+            cache.get(4L);
+        }
+        cache.put(4L, ENTRY);
+        assertNotNull(cache.get(4L));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void validMovesConsultsCache() {
+        MoveCache cache = MoveCache.lru(16);
+        ChessGame.setMoveCache(cache);
+        ChessGame game = new ChessGame();
+        ChessGame other = new ChessGame();
+
+        assertEquals(2, game.validMoves(new ChessPosition(1, 2)).size());
+        assertEquals(1, cache.missCount());
+        assertEquals(2, other.validMoves(new ChessPosition(2, 5)).size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(GameStatus.ONGOING, other.getStatus());
+        assertEquals(2, cache.hitCount());
+
+        // Moves for the side not to move are generated directly
+        assertEquals(2, game.validMoves(new ChessPosition(8, 7)).size());
+        assertEquals(3, cache.hitCount() + cache.missCount());
+    }
+
+    @Test
+    void statusComesFromTheCache() {
+        MoveCache cache = MoveCache.lru(16);
+        ChessGame.setMoveCache(cache);
+        ChessGame mated = ChessGame.fromFen("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1");
+        assertEquals(GameStatus.CHECKMATE, mated.getStatus());
+        assertEquals(1, cache.missCount());
+        assertEquals(GameStatus.CHECKMATE, ChessGame.fromFen("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1").getStatus());
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void entriesForAnotherPositionAreIgnored() {
+        MoveCache cache = MoveCache.lru(16);
+        ChessGame.setMoveCache(cache);
+        ChessGame game = new ChessGame();
+        // A colliding entry for an empty board that lets the a-pawn jump three squares
+        int bogus = Move.of(Bitboards.square(2, 1), Bitboards.square(5, 1), Move.QUIET);
+        cache.put(game.positionKey(), new MoveCache.Entry(new int[]{bogus}, GameStatus.CHECK, new ChessBoard()));
+
+        assertEquals(2, game.validMoves(new ChessPosition(2, 1)).size());
+        assertEquals(GameStatus.ONGOING, game.getStatus());
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(
+                new ChessMove(new ChessPosition(2, 1), new ChessPosition(5, 1), null)));
+    }
+
+    @Test
+    void cachedAndGeneratedMovesAgree() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        MoveCache cache = MoveCache.tinyLfu(64);
+        ChessGame game = ChessGame.fromFen(fen);
+        for (int square = 0; square < 64; square++) {
+            ChessPosition position = Bitboards.position(square);
+            ChessGame.setMoveCache(null);
+            Collection<ChessMove> generated = game.validMoves(position);
+            ChessGame.setMoveCache(cache);
+            Collection<ChessMove> cached = game.validMoves(position);
+            if (generated == null) {
+                assertNull(cached);
+            } else {
+                assertEquals(new HashSet<>(generated), new HashSet<>(cached));
+            }
+        }
+        assertTrue(cache.hitCount() > 0);
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveTest {
+
+    @Test
+    void encodesSquaresAndFlags() {
+        int move = Move.of(Bitboards.square(2, 5), Bitboards.square(4, 5), Move.DOUBLE_PAWN_PUSH);
+        assertEquals(Bitboards.square(2, 5), Move.from(move));
+        assertEquals(Bitboards.square(4, 5), Move.to(move));
+        assertEquals(Move.DOUBLE_PAWN_PUSH, Move.flags(move));
+        assertFalse(Move.isCapture(move));
+        assertFalse(Move.isPromotion(move));
+        assertEquals("e2e4", Move.toString(move));
+        assertEquals(0, move >>> 16);
+    }
+
+    @Test
+    void promotions() {
+        int from = Bitboards.square(7, 1);
+        int to = Bitboards.square(8, 2);
+        for (ChessPiece.PieceType type : new ChessPiece.PieceType[] {ChessPiece.PieceType.QUEEN,
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT}) {
+            int move = Move.promotion(from, to, type, true);
+            assertTrue(Move.isPromotion(move));
+            assertTrue(Move.isCapture(move));
+            assertEquals(type, Move.promotionType(move));
+            assertEquals(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), type), Move.toChessMove(move));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Move.promotion(from, to, ChessPiece.PieceType.KING, false));
+    }
+
+    @Test
+    void coordinateNotation() {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2),
+                ChessPiece.PieceType.KNIGHT);
+        assertEquals(promotion, ChessMove.fromUci("a7b8n"));
+        assertEquals("a7b8n", promotion.toUci());
+        assertEquals(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null), ChessMove.fromUci("e2e4"));
+        for (String text : new String[]{"e2e", "e2e4k", "i2e4", "e0e4", "e2e4qq"}) {
+            assertThrows(IllegalArgumentException.class, () -> ChessMove.fromUci(text), text);
+        }
+    }
+
+    @Test
+    void primitiveMovesMatchValidMoves() {
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        assertEquals(20, moves.size());
+
+        ChessPosition knight = new ChessPosition(1, 7);
+        int generated = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.from(moves.get(i)) == Bitboards.square(knight)) {
+                assertTrue(game.validMoves(knight).contains(Move.toChessMove(moves.get(i))));
+                generated++;
+            }
+        }
+        assertEquals(game.validMoves(knight).size(), generated);
+    }
+
+    @Test
+    void doMoveWithEncodedMove() {
+        ChessGame game = new ChessGame();
+        long start = game.positionKey();
+        game.doMove(Move.of(Bitboards.square(2, 5), Bitboards.square(4, 5), Move.DOUBLE_PAWN_PUSH));
+        assertEquals(new ChessPosition(3, 5), game.getEnPassantTarget());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        game.undoMove();
+        assertEquals(start, game.positionKey());
+    }
+}
@@ -0,0 +1,32 @@
+package chess;
+
+/**
+ * Moves in coordinate notation, e.g. "e2e4", for setting up test positions
+ */
+public final class Moves {
+
+    private Moves() {
+    }
+
+    public static ChessMove move(String text) {
+        return ChessMove.fromUci(text);
+    }
+
+    /**
+     * A new game with the moves played from the starting position
+     */
+    public static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, moves);
+        return game;
+    }
+
+    /**
+     * Plays the moves through makeMove, so each one is checked for legality
+     */
+    public static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String text : moves) {
+            game.makeMove(move(text));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Perft regression suite. Expected counts are the published values for each
+ * reference position; depths are kept small enough to run on every build.
+ */
+public class PerftTest {
+
+    private static void assertPerft(ChessGame game, long... expectedByDepth) {
+        for (int depth = 1; depth <= expectedByDepth.length; depth++) {
+            assertEquals(expectedByDepth[depth - 1], Perft.perft(game, depth), "perft(" + depth + ")");
+        }
+    }
+
+    @Test
+    void initialPosition() {
+        assertPerft(new ChessGame(), 20, 400, 8902, 197281);
+    }
+
+    @Test
+    void kiwipete() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        assertPerft(game, 48, 2039, 97862);
+    }
+
+    @Test
+    void enPassantAndDiscoveredCheck() {
+        ChessGame game = ChessGame.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -");
+        assertPerft(game, 14, 191, 2812, 43238);
+    }
+
+    @Test
+    void promotions() {
+        ChessGame game = ChessGame.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertPerft(game, 6, 264, 9467);
+    }
+
+    @Test
+    void promotionWithCheck() {
+        ChessGame game = ChessGame.fromFen("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8");
+        assertPerft(game, 44, 1486, 62379);
+    }
+
+    @Test
+    void middlegame() {
+        ChessGame game = ChessGame.fromFen("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+        assertPerft(game, 46, 2079, 89890);
+    }
+
+    @Test
+    void perftLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = TestUtilities.defaultBoard();
+        Perft.perft(game, 3);
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        ChessGame game = new ChessGame();
+        long total = Perft.divide(game, 3).values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(8902, total);
+        assertEquals(20, Perft.divide(game, 3).size());
+    }
+}
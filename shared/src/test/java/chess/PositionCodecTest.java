@@ -0,0 +1,59 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionCodecTest {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 0 3",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 99 1200",
+            "8/8/8/8/8/8/8/8 w - - 0 1",
+    };
+
+    @Test
+    void roundTrip() {
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            byte[] bytes = PositionCodec.encode(game);
+            assertEquals(PositionCodec.SIZE, bytes.length);
+
+            ChessGame decoded = PositionCodec.decode(bytes);
+            assertEquals(fen, decoded.toFen());
+            assertEquals(game, decoded);
+            assertEquals(game.positionKey(), decoded.positionKey());
+        }
+    }
+
+    @Test
+    void packsPositionsBackToBack() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(POSITIONS.length * PositionCodec.SIZE);
+        for (String fen : POSITIONS) {
+            PositionCodec.encode(ChessGame.fromFen(fen), buffer);
+        }
+        assertFalse(buffer.hasRemaining());
+
+        buffer.flip();
+        for (String fen : POSITIONS) {
+            assertEquals(fen, PositionCodec.decode(buffer).toFen());
+        }
+    }
+
+    @Test
+    void rejectsTooManyPieces() {
+        ChessGame game = ChessGame.fromFen("pppppppp/pppppppp/pppppppp/pppppppp/pppppppp/8/8/8 w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.encode(game));
+    }
+
+    @Test
+    void rejectsBadBytes() {
+        byte[] bytes = PositionCodec.encode(new ChessGame());
+        bytes[8] = (byte) 0xF0; // piece code 15 on a1
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(bytes));
+    }
+}
@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+import static chess.Moves.move;
+import static chess.Moves.play;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionKeyTest {
+
+    @Test
+    void transpositionsShareKey() throws InvalidMoveException {
+        ChessGame first = play("g1f3", "g8f6", "b1c3");
+        ChessGame second = play("b1c3", "g8f6", "g1f3");
+        assertEquals(first.positionKey(), second.positionKey());
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    void boardKeyIndependentOfSetupOrder() {
+        ChessBoard loaded = TestUtilities.loadBoard("""
+                |r|n|b|q|k|b|n|r|
+                |p|p|p|p|p|p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P|P|P|P|P|P|P|P|
+                |R|N|B|Q|K|B|N|R|
+                """);
+        ChessBoard reset = new ChessBoard();
+        reset.resetBoard();
+        assertEquals(reset.getKey(), loaded.getKey());
+    }
+
+    @Test
+    void undoRestoresKey() {
+        ChessGame game = new ChessGame();
+        long before = game.positionKey();
+        game.doMove(move("e2e4"));
+        assertNotEquals(before, game.positionKey());
+        game.undoMove();
+        assertEquals(before, game.positionKey());
+    }
+
+    @Test
+    void sideToMoveChangesKey() {
+        ChessGame game = new ChessGame();
+        long white = game.positionKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(white, game.positionKey());
+    }
+
+    @Test
+    void enPassantFileOnlyCountsWhenCapturable() throws InvalidMoveException {
+        // No black pawn can take on e3, so the target does not change the key
+        ChessGame game = play("e2e4");
+        long key = game.positionKey();
+        game.setEnPassantTarget(null);
+        assertEquals(key, game.positionKey());
+
+        // After d5 the pawn on e5 can take on d6
+        ChessGame capturable = play("e2e4", "a7a6", "e4e5", "d7d5");
+        long withTarget = capturable.positionKey();
+        capturable.setEnPassantTarget(null);
+        assertNotEquals(withTarget, capturable.positionKey());
+    }
+
+    @Test
+    void lostCastlingRightsChangeKey() throws InvalidMoveException {
+        // Same placement and side to move, but the white king has moved and come back
+        ChessGame moved = play("e2e4", "e7e5", "e1e2", "e8e7", "e2e1", "e7e8");
+        ChessGame fresh = play("e2e4", "e7e5", "g1f3", "g8f6", "f3g1", "f6g8");
+        assertEquals(moved.getBoard(), fresh.getBoard());
+        assertNotEquals(moved.positionKey(), fresh.positionKey());
+        assertNotEquals(moved, fresh);
+    }
+}
@@ -0,0 +1,71 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTest {
+
+    private static void assertTermsMatchFreshBoard(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        ChessBoard fresh = ChessGame.fromFen(game.toFen()).getBoard();
+        assertEquals(fresh.getMiddlegameScore(), board.getMiddlegameScore(), game.toFen());
+        assertEquals(fresh.getEndgameScore(), board.getEndgameScore(), game.toFen());
+        assertEquals(fresh.getPhase(), board.getPhase(), game.toFen());
+        assertEquals(fresh.getPawnKey(), board.getPawnKey(), game.toFen());
+    }
+
+    @Test
+    void termsFollowMakeAndUnmake() {
+        SplittableRandom random = new SplittableRandom(7);
+        MoveList moves = new MoveList();
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+            int played = 0;
+            for (; played < 60; played++) {
+                game.legalMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.doMove(moves.get(random.nextInt(moves.size())));
+                assertTermsMatchFreshBoard(game);
+            }
+            for (; played > 0; played--) {
+                game.undoMove();
+            }
+            assertTermsMatchFreshBoard(game);
+        }
+    }
+
+    @Test
+    void startingPositionIsLevel() {
+        ChessGame game = new ChessGame();
+        assertEquals(0, game.getBoard().getMiddlegameScore());
+        assertEquals(0, game.getBoard().getEndgameScore());
+        assertEquals(24, game.getBoard().getPhase());
+        assertEquals(0, new Evaluation().evaluate(game));
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSame() {
+        Evaluation evaluation = new Evaluation();
+        int white = evaluation.evaluate(ChessGame.fromFen("4k3/pp6/8/3P4/8/8/5PPP/R3K3 w - - 0 1"));
+        int black = evaluation.evaluate(ChessGame.fromFen("r3k3/5ppp/8/8/3p4/8/PP6/4K3 b - - 0 1"));
+        assertEquals(white, black);
+        assertTrue(white > 0);
+    }
+
+    @Test
+    void passedPawnsCountMoreInTheEndgame() {
+        Evaluation evaluation = new Evaluation();
+        int passed = evaluation.evaluate(ChessGame.fromFen("4k3/8/8/1P6/8/8/8/4K3 w - - 0 1"));
+        int blocked = evaluation.evaluate(ChessGame.fromFen("4k3/2p5/8/1P6/8/8/8/4K3 w - - 0 1"));
+        // The black pawn is worth about a pawn; being passed is worth more on top of that
+        assertTrue(passed - blocked > 100, passed + " vs " + blocked);
+    }
+}
@@ -0,0 +1,110 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovePickerTest {
+
+    private static int square(String name) {
+        return Bitboards.square(name.charAt(1) - '0', name.charAt(0) - 'a' + 1);
+    }
+
+    private static int find(MoveList moves, String from, String to) {
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Move.from(move) == square(from) && Move.to(move) == square(to)) {
+                return move;
+            }
+        }
+        throw new AssertionError("No move " + from + to);
+    }
+
+    @Test
+    void picksInStages() {
+        // White pawn and queen can both take the black queen on d5; the knight can take a loose pawn on h7
+        ChessGame game = ChessGame.fromFen("k7/7p/8/3q2N1/4P3/8/3Q4/4K3 w - - 0 1");
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        int pawnTakesQueen = find(moves, "e4", "d5");
+        int queenTakesQueen = find(moves, "d2", "d5");
+        int knightTakesPawn = find(moves, "g5", "h7");
+        int hashMove = find(moves, "e1", "f1");
+        int killer = find(moves, "d2", "a5");
+        int historyMove = find(moves, "g5", "h3");
+
+        int[] history = new int[2 * 64 * 64];
+        history[Move.from(historyMove) * 64 + Move.to(historyMove)] = 500;
+        MovePicker picker = new MovePicker();
+        picker.reset(moves, game.getBoard(), hashMove, new int[]{killer, 0}, history, 0);
+
+        assertEquals(hashMove, picker.next());
+        assertEquals(pawnTakesQueen, picker.next());
+        assertEquals(queenTakesQueen, picker.next());
+        assertEquals(knightTakesPawn, picker.next());
+        assertEquals(killer, picker.next());
+        assertEquals(historyMove, picker.next());
+
+        Set<Integer> seen = new HashSet<>(Set.of(hashMove, pawnTakesQueen, queenTakesQueen, knightTakesPawn,
+                killer, historyMove));
+        while (picker.hasNext()) {
+            assertTrue(seen.add(picker.next()));
+        }
+        assertEquals(moves.size(), seen.size());
+    }
+
+    @Test
+    void losingCapturesComeAfterQuietMoves() {
+        // The queen can take a pawn that a pawn defends, or a loose knight
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/3p2n1/8/8/3Q4/4K3 w - - 0 1");
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        int queenTakesPawn = find(moves, "d2", "d5");
+        int queenTakesKnight = find(moves, "d2", "g5");
+        MovePicker picker = new MovePicker();
+        picker.reset(moves, game.getBoard(), 0, new int[2], new int[2 * 64 * 64], 0);
+
+        assertEquals(queenTakesKnight, picker.next());
+        int last = 0;
+        while (picker.hasNext()) {
+            last = picker.next();
+        }
+        assertEquals(queenTakesPawn, last);
+    }
+
+    @Test
+    void quiescenceKeepsOnlyCapturesThatPay() {
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/3p2n1/8/8/3Q4/4K3 w - - 0 1");
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        MovePicker picker = new MovePicker();
+        picker.resetCaptures(moves, game.getBoard());
+
+        assertEquals(find(moves, "d2", "g5"), picker.next());
+        assertFalse(picker.hasNext());
+    }
+
+    @Test
+    void underpromotionsComeLast() {
+        ChessGame game = ChessGame.fromFen("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        MovePicker picker = new MovePicker();
+        picker.reset(moves, game.getBoard(), 0, new int[2], new int[2 * 64 * 64], 0);
+
+        assertEquals(ChessPiece.PieceType.QUEEN, Move.promotionType(picker.next()));
+        int last = 0;
+        while (picker.hasNext()) {
+            last = picker.next();
+        }
+        assertTrue(Move.isPromotion(last));
+    }
+}
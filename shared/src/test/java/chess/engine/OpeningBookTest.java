@@ -0,0 +1,135 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveList;
+import chess.PolyglotKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static chess.Moves.move;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    private static final PolyglotKey KEYS = new PolyglotKey(new SplittableRandom(7).longs(PolyglotKey.TABLE_SIZE)
+            .toArray());
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+    private static final String CASTLE = "r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq - 0 1";
+
+    @TempDir
+    Path directory;
+
+    private final MoveList legal = new MoveList();
+
+    private record Entry(long key, int move, int weight) {
+    }
+
+    // Polyglot move bits for a move in coordinate notation
+    private static int bookMove(String text) {
+        return (text.charAt(2) - 'a') | (text.charAt(3) - '1') << 3 | (text.charAt(0) - 'a') << 6
+                | (text.charAt(1) - '1') << 9;
+    }
+
+    private static Entry entry(String fen, String move, int weight) {
+        return new Entry(KEYS.key(ChessGame.fromFen(fen)), bookMove(move), weight);
+    }
+
+    private OpeningBook write(List<Entry> entries) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort((a, b) -> Long.compareUnsigned(a.key(), b.key()));
+        ByteBuffer buffer = ByteBuffer.allocate(sorted.size() * OpeningBook.ENTRY_BYTES);
+        for (Entry entry : sorted) {
+            buffer.putLong(entry.key()).putShort((short) entry.move()).putShort((short) entry.weight()).putInt(0);
+        }
+        Path path = directory.resolve("book.bin");
+        Files.write(path, buffer.array());
+        return OpeningBook.open(path, KEYS);
+    }
+
+    @Test
+    void findsTheHeaviestMove() throws IOException {
+        OpeningBook book = write(List.of(entry(START, "e2e4", 10), entry(START, "d2d4", 30),
+                entry(START, "g1f3", 5), entry(AFTER_E4, "e7e5", 1)));
+        assertEquals(4, book.size());
+        assertEquals(move("d2d4"), book.bestMove(new ChessGame(), legal));
+
+        ChessGame game = new ChessGame();
+        game.doMove(move("e2e4"));
+        assertEquals(move("e7e5"), book.bestMove(game, legal));
+    }
+
+    @Test
+    void missesPositionsOutsideTheBook() throws IOException {
+        OpeningBook book = write(List.of(entry(START, "e2e4", 10)));
+        assertNull(book.bestMove(ChessGame.fromFen(AFTER_E4), legal));
+        assertNull(write(List.of()).bestMove(new ChessGame(), legal));
+    }
+
+    @Test
+    void picksInProportionToWeight() throws IOException {
+        OpeningBook book = write(List.of(entry(START, "e2e4", 3), entry(START, "d2d4", 1),
+                entry(START, "a2a3", 0)));
+        SplittableRandom random = new SplittableRandom(1);
+        int e4 = 0;
+        for (int i = 0; i < 4000; i++) {
+            ChessMove picked = book.pickMove(new ChessGame(), legal, random);
+            assertNotEquals(move("a2a3"), picked);
+            if (picked.equals(move("e2e4"))) {
+                e4++;
+            }
+        }
+        assertTrue(e4 > 2800 && e4 < 3200, "e2e4 picked " + e4 + " times");
+    }
+
+    @Test
+    void readsCastlingAsKingTakesRook() throws IOException {
+        OpeningBook book = write(List.of(entry(CASTLE, "e1h1", 2), entry(CASTLE, "e1a1", 1)));
+        assertEquals(move("e1g1"), book.bestMove(ChessGame.fromFen(CASTLE), legal));
+    }
+
+    @Test
+    void skipsIllegalBookMoves() throws IOException {
+        OpeningBook book = write(List.of(entry(START, "e2e5", 50), entry(START, "c2c4", 1)));
+        assertEquals(move("c2c4"), book.bestMove(new ChessGame(), legal));
+    }
+
+    @Test
+    void searchPlaysBookMovesWithoutSearching() throws IOException {
+        Search search = new Search(new TranspositionTable(1));
+        search.setOpeningBook(write(List.of(entry(START, "e2e4", 10))));
+        SearchResult result = search.search(new ChessGame(), SearchLimits.depth(3));
+        assertEquals(move("e2e4"), result.getBestMove());
+        assertEquals(0, result.getNodes());
+
+        result = search.search(ChessGame.fromFen(AFTER_E4), SearchLimits.depth(3));
+        assertEquals(3, result.getDepth());
+        assertTrue(result.getNodes() > 0);
+    }
+
+    @Test
+    void keysFollowThePosition() {
+        assertNotEquals(KEYS.key(ChessGame.fromFen(START)), KEYS.key(ChessGame.fromFen(AFTER_E4)));
+        // An en passant square no pawn can use does not change the key
+        assertEquals(KEYS.key(ChessGame.fromFen(AFTER_E4)),
+                KEYS.key(ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")));
+        assertThrows(IllegalArgumentException.class, () -> new PolyglotKey(new long[10]));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotBooks() throws IOException {
+        Path path = directory.resolve("broken.bin");
+        Files.write(path, new byte[17]);
+        assertThrows(IllegalArgumentException.class, () -> OpeningBook.open(path, KEYS));
+    }
+}
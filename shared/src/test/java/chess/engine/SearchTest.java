@@ -0,0 +1,131 @@
+package chess.engine;
+
+import chess.Bitbase;
+import chess.ChessGame;
+import org.junit.jupiter.api.Test;
+
+import static chess.Moves.move;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTest {
+
+    @Test
+    void findsMateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        assertEquals(move("a1a8"), result.getBestMove());
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 1, result.getScore());
+    }
+
+    @Test
+    void findsMateInTwo() {
+        // No check works yet; the king has to take away the escape squares first
+        ChessGame game = ChessGame.fromFen("k7/8/2K5/8/8/8/8/7R w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(5));
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 3, result.getScore());
+        assertEquals(3, result.getPrincipalVariation().size());
+        assertEquals(result.getBestMove(), result.getPrincipalVariation().get(0));
+    }
+
+    @Test
+    void winsHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertEquals(move("d2d5"), result.getBestMove());
+        assertTrue(result.getScore() > 0);
+    }
+
+    @Test
+    void seesPastTheHorizon() {
+        // At depth 1 without quiescence Qxd5 looks like a free pawn; the pawn on c6 takes the queen back
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(1));
+        assertNotEquals(move("d2d5"), result.getBestMove());
+        assertTrue(result.getScore() > 500);
+    }
+
+    @Test
+    void scoresBitbaseEndingsWithoutSearchingThem() {
+        // A pawn up, but the black king holds the corner
+        ChessGame game = ChessGame.fromFen("k7/8/8/8/8/8/P7/K7 w - - 0 1");
+        ChessGame.setBitbase(Bitbase.generate());
+        try {
+            assertEquals(0, new Search().search(game, SearchLimits.depth(6)).getScore());
+            SearchResult won = new Search().search(ChessGame.fromFen("8/8/8/8/8/8/P7/K6k w - - 0 1"),
+                    SearchLimits.depth(4));
+            assertTrue(won.getScore() > Search.KNOWN_WIN && !won.isMate());
+        } finally {
+            ChessGame.setBitbase(null);
+        }
+    }
+
+    @Test
+    void leavesTheGameUntouched() {
+        ChessGame game = new ChessGame();
+        String before = game.toFen();
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertEquals(before, game.toFen());
+        assertEquals(3, result.getDepth());
+        assertNotNull(result.getBestMove());
+    }
+
+    @Test
+    void stopsAtNodeLimit() {
+        SearchResult result = new Search().search(new ChessGame(), SearchLimits.nodes(5_000));
+        assertTrue(result.getNodes() <= 5_000);
+        assertTrue(result.getDepth() >= 1);
+        assertNotNull(result.getBestMove());
+    }
+
+    @Test
+    void stopsAtTimeLimit() {
+        SearchResult result = new Search().search(new ChessGame(), SearchLimits.millis(50));
+        assertTrue(result.getMillis() < 1_000);
+        assertNotNull(result.getBestMove());
+    }
+
+    @Test
+    void noMoveWhenMated() {
+        ChessGame game = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertNull(result.getBestMove());
+        assertEquals(-Search.MATE, result.getScore());
+    }
+
+    @Test
+    void singleThreadIsDeterministic() {
+        ChessGame game = ChessGame.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        SearchResult first = new Search().search(game, SearchLimits.depth(4));
+        SearchResult second = new Search().search(game, SearchLimits.depth(4));
+        assertEquals(first.getNodes(), second.getNodes());
+        assertEquals(first.getScore(), second.getScore());
+        assertEquals(first.getPrincipalVariation(), second.getPrincipalVariation());
+    }
+
+    @Test
+    void helperThreadsShareTheTable() throws InterruptedException {
+        Search search = new Search(new TranspositionTable(8), 4);
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = search.search(game, SearchLimits.depth(4));
+        assertEquals(4, result.getThreads());
+        assertEquals(move("a1a8"), result.getBestMove());
+        assertTrue(result.isMate());
+        Thread[] helpers = search.helperThreads().clone();
+        assertEquals(3, helpers.length);
+
+        // The same helpers take part in the next search
+        result = search.search(new ChessGame(), SearchLimits.depth(4));
+        assertEquals(4, result.getDepth());
+        assertNotNull(result.getBestMove());
+        assertArrayEquals(helpers, search.helperThreads());
+
+        search.close();
+        for (Thread helper : helpers) {
+            helper.join(5_000);
+            assertFalse(helper.isAlive());
+        }
+        assertThrows(IllegalStateException.class, () -> search.search(game, SearchLimits.depth(1)));
+    }
+}
@@ -0,0 +1,68 @@
+package chess.engine;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Test;
+
+import static chess.Moves.move;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticExchangeTest {
+
+    private static int see(String fen, String move) {
+        return StaticExchange.see(ChessGame.fromFen(fen), move(move));
+    }
+
+    @Test
+    void pawnTakesDefendedKnight() {
+        assertEquals(220, see("4k3/8/2p5/3n4/4P3/8/8/4K3 w - - 0 1", "e4d5"));
+    }
+
+    @Test
+    void queenTakesPawnDefendedByPawn() {
+        assertEquals(-800, see("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1", "d2d5"));
+    }
+
+    @Test
+    void rookBehindRookJoinsTheExchange() {
+        // Without the rook on d1 black would win the exchange back: 320 - 500
+        assertEquals(320, see("3rk3/8/8/3n4/8/8/3R4/3RK3 w - - 0 1", "d2d5"));
+    }
+
+    @Test
+    void enPassant() {
+        assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6"));
+    }
+
+    @Test
+    void quietMoveOntoAttackedSquare() {
+        assertEquals(-900, see("4k3/8/8/2p5/8/8/3Q4/4K3 w - - 0 1", "d2d4"));
+        assertEquals(0, see("4k3/8/8/2p5/8/8/3Q4/4K3 w - - 0 1", "d2d3"));
+    }
+
+    @Test
+    void kingDoesNotTakeDefendedPiece() {
+        // After Rxd2 Bxd2 the king cannot retake, as the rook on d8 guards d2
+        assertEquals(400, see("3rk3/8/8/6b1/8/8/R2q4/3K4 w - - 0 1", "a2d2"));
+    }
+
+    @Test
+    void flagsBlunders() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/2p5/8/8/3Q4/4K3 w - - 0 1");
+        assertTrue(StaticExchange.isBlunder(game, move("d2d4")));
+        assertFalse(StaticExchange.isBlunder(game, move("d2d3")));
+    }
+
+    @Test
+    void materialAlreadyLostIsNotABlunder() {
+        // The knight is lost unless it moves; moving the queen somewhere safe does not make it worse
+        ChessGame game = ChessGame.fromFen("4k3/8/8/1pp5/3N4/8/8/Q3K3 w - - 0 1");
+        assertFalse(StaticExchange.isBlunder(game, move("a1a2")));
+        assertTrue(StaticExchange.isBlunder(game, move("a1a4")));
+    }
+
+    @Test
+    void rejectsIllegalMoves() {
+        ChessGame game = new ChessGame();
+        assertThrows(IllegalArgumentException.class, () -> StaticExchange.see(game, move("e2e5")));
+    }
+}
@@ -0,0 +1,55 @@
+package chess.engine;
+
+import chess.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    void storesAndProbes() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(65536, table.getSlotCount());
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = Move.of(12, 28, Move.DOUBLE_PAWN_PUSH);
+        assertEquals(TranspositionTable.NONE, table.probe(key));
+
+        table.store(key, move, -Search.MATE + 3, 7, TranspositionTable.LOWER);
+        long entry = table.probe(key);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-Search.MATE + 3, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    void otherKeyInSameSlotMisses() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42L;
+        table.store(key, 1, 0, 1, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.NONE, table.probe(key + ((long) table.getSlotCount() << 8)));
+    }
+
+    @Test
+    void deeperEntriesSurviveUntilNextSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 99L;
+        table.store(key, 1, 50, 6, TranspositionTable.LOWER);
+        table.store(key, 2, 10, 2, TranspositionTable.UPPER);
+        assertEquals(6, TranspositionTable.depth(table.probe(key)));
+
+        table.store(key, 3, 20, 2, TranspositionTable.EXACT);
+        assertEquals(3, TranspositionTable.move(table.probe(key)));
+
+        table.newSearch();
+        table.store(key, 4, 30, 1, TranspositionTable.UPPER);
+        assertEquals(4, TranspositionTable.move(table.probe(key)));
+        assertEquals(1, table.hashfull());
+    }
+
+    @Test
+    void rejectsBadSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+}